@@ -0,0 +1,45 @@
+package org.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.example.Chessboard;
+import org.example.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Makes and undoes every legal move of the position once per invocation
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MakeUndoBenchmark {
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private int count;
+
+    @Setup
+    public void setUp(Positions positions) {
+        count = new MoveGenerator(positions.board).generateLegalMoves(moves);
+    }
+
+    @Benchmark
+    public long makeUndo(Positions positions) {
+        Chessboard board = positions.board;
+        long keys = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            keys += board.getZobristKey();
+            board.undoMove(moves[i]);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.example.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGeneratorBenchmark {
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private MoveGenerator moveGenerator;
+
+    @Setup
+    public void setUp(Positions positions) {
+        moveGenerator = new MoveGenerator(positions.board);
+    }
+
+    @Benchmark
+    public int generateMoves(Positions positions) {
+        return moveGenerator.generateMoves(positions.board.isWhiteToMove(), moves);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        return moveGenerator.generateLegalMoves(moves);
+    }
+
+    @Benchmark
+    public int generateCaptures(Positions positions) {
+        return moveGenerator.generateCaptures(positions.board.isWhiteToMove(), moves);
+    }
+
+    @Benchmark
+    public boolean isKingInCheck(Positions positions) {
+        return moveGenerator.isKingInCheck(positions.board.isWhiteToMove());
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.benchmarks;
+
+import org.example.Chessboard;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The standard perft positions, so every benchmark runs on an opening, a busy middlegame and sparse endgames
+@State(Scope.Thread)
+public class Positions {
+    @Param({"startpos", "kiwipete", "endgame", "promotions", "middlegame"})
+    public String position;
+
+    public Chessboard board;
+
+    @Setup
+    public void setUp() {
+        board = new Chessboard(fen(position));
+    }
+
+    public static String fen(String name) {
+        return switch (name) {
+            case "startpos" -> "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+            case "kiwipete" -> "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+            case "endgame" -> "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+            case "promotions" -> "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+            case "middlegame" -> "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+            default -> throw new IllegalArgumentException("Unknown position: " + name);
+        };
+    }
+}
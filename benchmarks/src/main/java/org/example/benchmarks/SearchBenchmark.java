@@ -0,0 +1,49 @@
+package org.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.example.Chessboard;
+import org.example.Move;
+import org.example.SearchLimits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Fixed-depth search from an empty hash table, so every invocation searches the same tree
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"5"})
+    public int depth;
+
+    private Chessboard board;
+
+    @Setup
+    public void setUp(Positions positions) {
+        board = positions.board;
+        board.setHashSize(16);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearHash() {
+        board.getSearchPool().getTranspositionTable().clear();
+    }
+
+    @Benchmark
+    public Move findBestMove() {
+        return board.findBestMove(board.isWhiteToMove(), SearchLimits.depth(depth));
+    }
+}
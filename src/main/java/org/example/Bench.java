@@ -0,0 +1,78 @@
+package org.example;
+
+// Headless benchmark: searches a fixed set of positions to a fixed depth on one thread with a fresh hash table.
+// The total node count is a signature of the search (any change to it means the search behaves differently),
+// and nodes per second tracks speed on the machine at hand.
+public class Bench {
+    public static final int DEFAULT_DEPTH = 5;
+    private static final int HASH_MB = 16;
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8",
+            "8/8/1p1k4/p1p1p3/P1P1P3/1P1K4/8/8 w - - 0 1",
+            "6k1/5p2/6p1/8/7p/8/6PP/6K1 b - - 0 1",
+            "4rrk1/pp1n3p/3q2pQ/2p1pb2/2PP4/2P3N1/P2B2PP/4RRK1 b - - 7 19"
+    };
+
+    private final SearchOptions options;
+    private long nodes;
+    private long timeMs;
+
+    public Bench() {
+        this(new SearchOptions());
+    }
+
+    public Bench(SearchOptions options) {
+        this.options = options;
+    }
+
+    public long run(int depth) {
+        nodes = 0;
+        timeMs = 0;
+        for (int i = 0; i < POSITIONS.length; i++) {
+            Chessboard board = new Chessboard(POSITIONS[i]);
+            board.setHashSize(HASH_MB);
+            board.getSearchPool().setOptions(options);
+            long start = System.nanoTime();
+            Move best = board.findBestMove(board.isWhiteToMove(), SearchLimits.depth(depth));
+            timeMs += (System.nanoTime() - start) / 1_000_000;
+            nodes += board.getNodes();
+            System.out.printf("Position %d/%d: %s nodes %d%n", i + 1, POSITIONS.length,
+                    best == null ? "(none)" : Move.toUci(best.toCode()), board.getNodes());
+        }
+        return nodes;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMs);
+    }
+
+    // bench [depth] [-nonull] [-nolmr]; the switches turn search features off for A/B comparisons
+    public static void main(String[] args) {
+        int depth = DEFAULT_DEPTH;
+        SearchOptions options = new SearchOptions();
+        for (String arg : args) {
+            switch (arg) {
+                case "-nonull" -> options.setNullMovePruning(false);
+                case "-nolmr" -> options.setLateMoveReductions(false);
+                default -> depth = Integer.parseInt(arg);
+            }
+        }
+        Bench bench = new Bench(options);
+        bench.run(depth);
+        System.out.println("===========================");
+        System.out.println("Total time (ms) : " + bench.timeMs);
+        System.out.println("Nodes searched  : " + bench.nodes);
+        System.out.println("Nodes/second    : " + bench.getNodesPerSecond());
+    }
+}
@@ -0,0 +1,208 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Builds the KQK, KRK and KPK bitbases read by Bitbases. White is always the strong side. Results are found by
+// backward induction from the mates: every pass marks the positions where White to move has a move into a known
+// win, and the positions where every Black move leads into one, until a pass changes nothing. Passes are split
+// over the cores; KPK reuses the finished KQK and KRK tables to score promotions.
+public class BitbaseGenerator {
+    private static final byte INVALID = 0;
+    private static final byte UNKNOWN = 1;
+    private static final byte WIN = 2;
+
+    private final int type;
+    private final byte[] queenTable; // Finished KQK and KRK results, needed for KPK promotions
+    private final byte[] rookTable;
+    private final byte[] results = new byte[Bitbases.POSITIONS];
+
+    private BitbaseGenerator(int type, byte[] queenTable, byte[] rookTable) {
+        this.type = type;
+        this.queenTable = queenTable;
+        this.rookTable = rookTable;
+    }
+
+    // Generates all three tables into the directory, using the given number of threads
+    public static void generate(Path directory, int threads, boolean verbose) throws IOException {
+        Files.createDirectories(directory);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            byte[] queen = generate(pool, Piece.QUEEN, null, null, directory, verbose);
+            byte[] rook = generate(pool, Piece.ROOK, null, null, directory, verbose);
+            generate(pool, Piece.PAWN, queen, rook, directory, verbose);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] generate(ForkJoinPool pool, int type, byte[] queen, byte[] rook, Path directory, boolean verbose) throws IOException {
+        long start = System.nanoTime();
+        BitbaseGenerator generator = new BitbaseGenerator(type, queen, rook);
+        int passes = pool.submit(generator::solve).join();
+        byte[] packed = generator.pack();
+        Files.write(directory.resolve(Bitbases.fileName(type)), packed);
+        if (verbose) {
+            int wins = 0;
+            for (byte result : generator.results) {
+                if (result == WIN) wins++;
+            }
+            System.out.printf("%s: %d passes, %d wins, %d ms%n", Bitbases.fileName(type), passes, wins,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return generator.results;
+    }
+
+    // Runs inside the pool, so the parallel streams below use its threads
+    private int solve() {
+        IntStream.range(0, Bitbases.POSITIONS).parallel().forEach(index -> results[index] = initial(index));
+        int passes = 0;
+        boolean changed = true;
+        while (changed) {
+            passes++;
+            // Positions only ever go from UNKNOWN to WIN, so reading a neighbour that another thread is updating in
+            // the same pass is harmless: at worst the position is picked up one pass later
+            changed = IntStream.range(0, Bitbases.POSITIONS).parallel().map(index -> {
+                if (results[index] == UNKNOWN && isWin(index)) {
+                    results[index] = WIN;
+                    return 1;
+                }
+                return 0;
+            }).sum() > 0;
+        }
+        return passes;
+    }
+
+    private byte[] pack() {
+        byte[] packed = new byte[Bitbases.FILE_BYTES];
+        for (int index = 0; index < Bitbases.POSITIONS; index++) {
+            if (results[index] == WIN) {
+                packed[index >>> 3] |= (byte) (1 << (index & 7));
+            }
+        }
+        return packed;
+    }
+
+    private static boolean whiteToMove(int index) {
+        return index >>> 18 == 0;
+    }
+
+    private static int whiteKing(int index) {
+        return index >>> 12 & 63;
+    }
+
+    private static int blackKing(int index) {
+        return index >>> 6 & 63;
+    }
+
+    private static int pieceSquare(int index) {
+        return index & 63;
+    }
+
+    private long pieceAttacks(int square, long occupied) {
+        return switch (type) {
+            case Piece.PAWN -> Bitboards.PAWN_ATTACKS[Piece.WHITE][square];
+            case Piece.ROOK -> Bitboards.rookAttacks(square, occupied);
+            default -> Bitboards.queenAttacks(square, occupied);
+        };
+    }
+
+    private byte initial(int index) {
+        int whiteKing = whiteKing(index), blackKing = blackKing(index), piece = pieceSquare(index);
+        if (whiteKing == blackKing || piece == whiteKing || piece == blackKing
+                || (Bitboards.KING_ATTACKS[whiteKing] & 1L << blackKing) != 0
+                || (type == Piece.PAWN && (Bitboards.row(piece) == 0 || Bitboards.row(piece) == 7))) {
+            return INVALID;
+        }
+        boolean blackInCheck = (pieceAttacks(piece, 1L << whiteKing | 1L << blackKing) & 1L << blackKing) != 0;
+        if (whiteToMove(index)) {
+            return blackInCheck ? INVALID : UNKNOWN; // Black can't have left its king in check
+        }
+        return blackInCheck && blackMoves(whiteKing, blackKing, piece) == 0 ? WIN : UNKNOWN;
+    }
+
+    // Squares the black king can go to, including capturing an undefended piece
+    private long blackMoves(int whiteKing, int blackKing, int piece) {
+        long attacked = Bitboards.KING_ATTACKS[whiteKing] | pieceAttacks(piece, 1L << whiteKing); // The king doesn't block
+        return Bitboards.KING_ATTACKS[blackKing] & ~attacked;
+    }
+
+    private boolean isWin(int index) {
+        int whiteKing = whiteKing(index), blackKing = blackKing(index), piece = pieceSquare(index);
+        if (whiteToMove(index)) {
+            return whiteWins(whiteKing, blackKing, piece);
+        }
+        // Black to move: lost only if every move is, and a position with no moves is mate (already WIN) or stalemate
+        long moves = blackMoves(whiteKing, blackKing, piece);
+        if (moves == 0 || (moves & 1L << piece) != 0) {
+            return false; // Stalemate, or taking the piece draws
+        }
+        while (moves != 0) {
+            int to = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            if (results[Bitbases.index(true, whiteKing, to, piece)] != WIN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean whiteWins(int whiteKing, int blackKing, int piece) {
+        long kingMoves = Bitboards.KING_ATTACKS[whiteKing] & ~Bitboards.KING_ATTACKS[blackKing] & ~(1L << piece);
+        while (kingMoves != 0) {
+            int to = Long.numberOfTrailingZeros(kingMoves);
+            kingMoves &= kingMoves - 1;
+            if (results[Bitbases.index(false, to, blackKing, piece)] == WIN) {
+                return true;
+            }
+        }
+
+        long kings = 1L << whiteKing | 1L << blackKing;
+        if (type != Piece.PAWN) {
+            long pieceMoves = pieceAttacks(piece, kings) & ~kings;
+            while (pieceMoves != 0) {
+                int to = Long.numberOfTrailingZeros(pieceMoves);
+                pieceMoves &= pieceMoves - 1;
+                if (results[Bitbases.index(false, whiteKing, blackKing, to)] == WIN) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int push = piece + 8;
+        if ((kings & 1L << push) != 0) {
+            return false;
+        }
+        if (Bitboards.row(push) == 7) {
+            // Promotion: look the new position up in the queen and rook tables (a rook can avoid stalemate)
+            int promoted = Bitbases.index(false, whiteKing, blackKing, push);
+            return queenTable[promoted] == WIN || rookTable[promoted] == WIN;
+        }
+        if (results[Bitbases.index(false, whiteKing, blackKing, push)] == WIN) {
+            return true;
+        }
+        int doublePush = push + 8;
+        return Bitboards.row(piece) == 1 && (kings & 1L << doublePush) == 0
+                && results[Bitbases.index(false, whiteKing, blackKing, doublePush)] == WIN;
+    }
+
+    // bitbases [directory] [-threads N]: writes kqk.bin, krk.bin and kpk.bin, by default to ./bitbases
+    public static void run(String[] args) throws IOException {
+        Path directory = Path.of("bitbases");
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                directory = Path.of(args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        generate(directory, threads, true);
+        System.out.printf("Bitbases written to %s in %d ms%n", directory, (System.nanoTime() - start) / 1_000_000);
+    }
+}
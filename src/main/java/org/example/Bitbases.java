@@ -0,0 +1,77 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Exact win/draw results for king and pawn, rook or queen against a lone king, generated by BitbaseGenerator.
+// The side with the extra piece can never lose these endings, so one bit per position is enough: set if that
+// side wins, clear if it is a draw. Positions are indexed from the strong side's point of view as
+// (side to move, strong king, weak king, piece square), 2 x 64 x 64 x 64 bits = 64 KB per ending.
+// The files are memory-mapped, so probing touches no heap.
+public class Bitbases {
+    public enum Result {
+        UNKNOWN, // Not one of the covered endings
+        DRAW,
+        WIN,     // For the side to move
+        LOSS
+    }
+
+    static final int POSITIONS = 2 * 64 * 64 * 64;
+    static final int FILE_BYTES = POSITIONS / 8;
+
+    private final MappedByteBuffer[] tables = new MappedByteBuffer[Piece.KING]; // By piece type; null if not loaded
+
+    // Loads whichever of kpk.bin, krk.bin and kqk.bin the directory holds
+    public static Bitbases load(Path directory) throws IOException {
+        Bitbases bitbases = new Bitbases();
+        for (int type : new int[]{Piece.PAWN, Piece.ROOK, Piece.QUEEN}) {
+            Path file = directory.resolve(fileName(type));
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() != FILE_BYTES) {
+                    throw new IOException(file + " should be " + FILE_BYTES + " bytes");
+                }
+                bitbases.tables[type] = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_BYTES); // Stays valid after close
+            }
+        }
+        return bitbases;
+    }
+
+    static String fileName(int type) {
+        return "k" + Character.toLowerCase(Piece.toChar(Piece.make(Piece.WHITE, type))) + "k.bin";
+    }
+
+    static int index(boolean strongToMove, int strongKing, int weakKing, int pieceSquare) {
+        return (strongToMove ? 0 : 1) << 18 | strongKing << 12 | weakKing << 6 | pieceSquare;
+    }
+
+    public Result probe(Chessboard board) {
+        long occupied = board.getOccupied();
+        if (Long.bitCount(occupied) != 3) {
+            return Result.UNKNOWN;
+        }
+        long kings = board.getPieces(Piece.WHITE, Piece.KING) | board.getPieces(Piece.BLACK, Piece.KING);
+        int pieceSquare = Long.numberOfTrailingZeros(occupied & ~kings);
+        int piece = board.pieceOn(pieceSquare);
+        MappedByteBuffer table = tables[Piece.type(piece)];
+        if (table == null) {
+            return Result.UNKNOWN;
+        }
+
+        // Tables are built with White as the strong side; mirror the board vertically when Black has the piece
+        int strong = Piece.colour(piece);
+        int flip = strong == Piece.WHITE ? 0 : 56;
+        boolean strongToMove = board.isWhiteToMove() == (strong == Piece.WHITE);
+        int index = index(strongToMove, board.getKingSquare(strong) ^ flip, board.getKingSquare(strong ^ 1) ^ flip, pieceSquare ^ flip);
+        if ((table.get(index >>> 3) >>> (index & 7) & 1) == 0) {
+            return Result.DRAW;
+        }
+        return strongToMove ? Result.WIN : Result.LOSS;
+    }
+}
@@ -0,0 +1,190 @@
+package org.example;
+
+public final class Bitboards {
+    // Square index is row * 8 + col, so a1 = 0, h1 = 7, a8 = 56, h8 = 63
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    // Leaper attack tables
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // For two squares on a shared rank, file or diagonal: the squares strictly between them, and the whole line
+    // through both from edge to edge. Zero for squares that are not aligned.
+    public static final long[][] BETWEEN = new long[64][64];
+    public static final long[][] LINE = new long[64][64];
+
+    private static final int[][] KNIGHT_OFFSETS = {
+            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
+    };
+    private static final int[][] KING_OFFSETS = {
+            {1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}, {-1, -1}, {-1, 0}, {-1, 1}
+    };
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Magic bitboard tables for sliding pieces
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    private static long seed = 0x9E3779B97F4A7C15L; // Fixed seed so the magics are the same every run
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = leaperAttacks(square, KING_OFFSETS);
+            PAWN_ATTACKS[Piece.WHITE][square] = leaperAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[Piece.BLACK][square] = leaperAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+
+            ROOK_MASKS[square] = relevantOccupancy(square, ROOK_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            ROOK_TABLE[square] = new long[1 << Long.bitCount(ROOK_MASKS[square])];
+            ROOK_MAGICS[square] = findMagic(square, ROOK_MASKS[square], ROOK_DIRECTIONS, ROOK_TABLE[square]);
+
+            BISHOP_MASKS[square] = relevantOccupancy(square, BISHOP_DIRECTIONS);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            BISHOP_TABLE[square] = new long[1 << Long.bitCount(BISHOP_MASKS[square])];
+            BISHOP_MAGICS[square] = findMagic(square, BISHOP_MASKS[square], BISHOP_DIRECTIONS, BISHOP_TABLE[square]);
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) continue;
+                long ends = 1L << from | 1L << to;
+                if ((rookAttacks(from, 0L) & 1L << to) != 0) {
+                    BETWEEN[from][to] = rookAttacks(from, 1L << to) & rookAttacks(to, 1L << from);
+                    LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | ends;
+                } else if ((bishopAttacks(from, 0L) & 1L << to) != 0) {
+                    BETWEEN[from][to] = bishopAttacks(from, 1L << to) & bishopAttacks(to, 1L << from);
+                    LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return row * 8 + col;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static long leaperAttacks(int square, int[][] offsets) {
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            int row = row(square) + offset[0];
+            int col = col(square) + offset[1];
+            if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                attacks |= 1L << square(row, col);
+            }
+        }
+        return attacks;
+    }
+
+    // Reference ray walk, only used to fill the magic tables
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int row = row(square) + direction[0];
+            int col = col(square) + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long bit = 1L << square(row, col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) break; // Blocked
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // Squares whose occupancy can change the attack set: the rays minus their final edge square
+    private static long relevantOccupancy(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = row(square) + direction[0];
+            int col = col(square) + direction[1];
+            while (row + direction[0] >= 0 && row + direction[0] < 8 && col + direction[1] >= 0 && col + direction[1] < 8) {
+                mask |= 1L << square(row, col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long findMagic(int square, long mask, int[][] directions, long[] table) {
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+
+        // Enumerate every subset of the mask (carry-rippler)
+        long subset = 0L;
+        int count = 0;
+        do {
+            occupancies[count] = subset;
+            attacks[count] = slidingAttacks(square, subset, directions);
+            count++;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        int[] usedBy = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            long magic = nextRandom() & nextRandom() & nextRandom(); // Sparse candidates work best
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) continue;
+
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (usedBy[index] != attempt) {
+                    usedBy[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) return magic;
+        }
+    }
+
+    private static long nextRandom() {
+        // xorshift64*
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
@@ -1,8 +1,6 @@
 package org.example;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Scanner;
 
 public class ChessEngine {
@@ -13,6 +11,20 @@ public class ChessEngine {
     private static final int MAX_DEPTH = 5; // Maximum depth for the alphaBeta search
     private static int[] nodeCount;
 
+    // Preallocated move lists: alphaBeta uses one per depth, the root gets its own
+    private static final int[][] moveBuffers = new int[MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+    private static final int ROOT_BUFFER = MAX_DEPTH;
+    private static int[] moveBuffer; // Buffer and count the generators below are currently filling
+    private static int moveCount;
+
+    // King squares (row * 8 + col) for white and black, updated by makeMove/undoMove
+    private static final int[] kingSquare = {4, 60};
+
+    private static final int[][] KNIGHT_JUMPS = {
+            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
+    };
+
     // Piece values
     private static final int PAWN_VALUE = 100;
     private static final int KNIGHT_VALUE = 320;
@@ -106,11 +118,11 @@ public class ChessEngine {
                 }
             } else {
                 System.out.println("Black's move:");
-                int[] bestMove = findBestMove(); // Utilizing the alphaBeta search
-                if (bestMove != null) {
-                    makeMove(new int[]{bestMove[0], bestMove[1]}, new int[]{bestMove[2], bestMove[3]});
-                    System.out.println("All moves: " + generateMoves(false));
-                    System.out.println("Black moves from " + posToString(new int[]{bestMove[0], bestMove[1]}) + " to " + posToString(new int[]{bestMove[2], bestMove[3]}) + ".");
+                int bestMove = findBestMove(); // Utilizing the alphaBeta search
+                if (bestMove != Move.NONE) {
+                    makeMove(bestMove);
+                    System.out.println("All moves: " + movesToString(moveBuffers[ROOT_BUFFER], generateMoves(false, moveBuffers[ROOT_BUFFER])));
+                    System.out.println("Black moves from " + posToString(Move.from(bestMove)) + " to " + posToString(Move.to(bestMove)) + ".");
                 } else {
                     System.out.println("No valid moves available for Black.");
                 }
@@ -138,16 +150,18 @@ public class ChessEngine {
     }
 
     // Implement findBestMove method using alphaBeta
-    private static int[] findBestMove() {
+    private static int findBestMove() {
         int bestVal = Integer.MIN_VALUE;
-        int[] bestMove = null;
-        List<int[]> moves = generateMoves(false); // Assuming false for Black
-
-        for (int[] move : moves) {
-            char capturedPiece = board[move[2]][move[3]];
-            makeMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]});
+        int bestMove = Move.NONE;
+        int[] moves = moveBuffers[ROOT_BUFFER];
+        int count = generateMoves(false, moves); // Assuming false for Black
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            char capturedPiece = board[Move.to(move) >>> 3][Move.to(move) & 7];
+            makeMove(move);
             int moveVal = alphaBeta(MAX_DEPTH - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, true); // true because after black's move, it's white's turn
-            undoMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]}, capturedPiece);
+            undoMove(move, capturedPiece);
 
             if (moveVal > bestVal) {
                 bestVal = moveVal;
@@ -157,19 +171,40 @@ public class ChessEngine {
         return bestMove;
     }
 
-    private static String posToString(int[] pos) {
-        return "" + (char)('a' + pos[1]) + (8 - pos[0]);
+    private static String movesToString(int[] moves, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "" : " ").append(Move.toUci(moves[i]));
+        }
+        return sb.toString();
+    }
+
+    private static String posToString(int square) {
+        return "" + (char)('a' + (square & 7)) + ((square >>> 3) + 1);
     }
 
-    private static void makeMove(int[] start, int[] end) {
-        board[end[0]][end[1]] = board[start[0]][start[1]];
+    // Moves are packed ints (see Move.encode) with squares numbered row * 8 + col
+    private static void makeMove(int move) {
+        int from = Move.from(move), to = Move.to(move);
+        board[to >>> 3][to & 7] = board[from >>> 3][from & 7];
+
+        board[from >>> 3][from & 7] = ' ';
+        trackKing(board[to >>> 3][to & 7], to);
+    }
 
-        board[start[0]][start[1]] = ' ';
+    private static void undoMove(int move, char capturedPiece) {
+        int from = Move.from(move), to = Move.to(move);
+        board[from >>> 3][from & 7] = board[to >>> 3][to & 7];
+        board[to >>> 3][to & 7] = capturedPiece;
+        trackKing(board[from >>> 3][from & 7], from);
     }
 
-    private static void undoMove(int[] start, int[] end, char capturedPiece) {
-        board[start[0]][start[1]] = board[end[0]][end[1]];
-        board[end[0]][end[1]] = capturedPiece;
+    private static void trackKing(char piece, int square) {
+        if (piece == 'K') {
+            kingSquare[0] = square;
+        } else if (piece == 'k') {
+            kingSquare[1] = square;
+        }
     }
 
     private static int evaluateBoard() {
@@ -198,40 +233,42 @@ public class ChessEngine {
         };
     }
 
-    private static List<int[]> generateMoves(boolean isWhite) {
-        List<int[]> moves = new ArrayList<>();
+    // Fills the given buffer and returns the number of moves
+    private static int generateMoves(boolean isWhite, int[] moves) {
+        moveBuffer = moves;
+        moveCount = 0;
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
                 char piece = board[row][col];
                 if ((Character.isUpperCase(piece) && isWhite) || (Character.isLowerCase(piece) && !isWhite)) {
                     switch (Character.toLowerCase(piece)) {
-                        case 'p' -> generatePawnMoves(row, col, moves, isWhite);
-                        case 'r' -> generateRookMoves(row, col, moves);
-                        case 'n' -> generateKnightMoves(row, col, moves);
-                        case 'b' -> generateBishopMoves(row, col, moves);
-                        case 'q' -> generateQueenMoves(row, col, moves);
-                        case 'k' -> generateKingMoves(row, col, moves);
+                        case 'p' -> generatePawnMoves(row, col, isWhite);
+                        case 'r' -> generateRookMoves(row, col);
+                        case 'n' -> generateKnightMoves(row, col);
+                        case 'b' -> generateBishopMoves(row, col);
+                        case 'q' -> generateQueenMoves(row, col);
+                        case 'k' -> generateKingMoves(row, col);
                     }
                 }
             }
         }
-        return moves;
+        return moveCount;
     }
 
-    private static void generateRookMoves(int row, int col, List<int[]> moves) {
+    private static void generateRookMoves(int row, int col) {
         // Horizontal and vertical moves
         int[] directions = {-1, 1};
         for (int direction : directions) {
             for (int i = row + direction; i >= 0 && i < 8; i += direction) { // Vertical moves
-                if (!addMoveIfValid(row, col, i, col, moves)) break;
+                if (!addMoveIfValid(row, col, i, col)) break;
             }
             for (int j = col + direction; j >= 0 && j < 8; j += direction) { // Horizontal moves
-                if (!addMoveIfValid(row, col, row, j, moves)) break;
+                if (!addMoveIfValid(row, col, row, j)) break;
             }
         }
     }
 
-    private static void generateKnightMoves(int row, int col, List<int[]> moves) {
+    private static void generateKnightMoves(int row, int col) {
         int[][] knightMoves = {
                 {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
                 {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
@@ -239,35 +276,35 @@ public class ChessEngine {
         for (int[] move : knightMoves) {
             int newRow = row + move[0];
             int newCol = col + move[1];
-            addMoveIfValid(row, col, newRow, newCol, moves);
+            addMoveIfValid(row, col, newRow, newCol);
         }
     }
 
-    private static void generateKingMoves(int row, int col, List<int[]> moves) {
+    private static void generateKingMoves(int row, int col) {
         int[] directions = {-1, 0, 1};
         for (int dRow : directions) {
             for (int dCol : directions) {
                 if (dRow != 0 || dCol != 0) {
                     int newRow = row + dRow;
                     int newCol = col + dCol;
-                    addMoveIfValid(row, col, newRow, newCol, moves);
+                    addMoveIfValid(row, col, newRow, newCol);
                 }
             }
         }
     }
 
-    private static void generateQueenMoves(int row, int col, List<int[]> moves) {
-        generateRookMoves(row, col, moves);
-        generateBishopMoves(row, col, moves);
+    private static void generateQueenMoves(int row, int col) {
+        generateRookMoves(row, col);
+        generateBishopMoves(row, col);
     }
 
-    private static void generateBishopMoves(int row, int col, List<int[]> moves) {
+    private static void generateBishopMoves(int row, int col) {
         int[] directions = {-1, 1};
         for (int dRow : directions) {
             for (int dCol : directions) {
                 int i = row + dRow, j = col + dCol;
                 while (i >= 0 && i < 8 && j >= 0 && j < 8) {
-                    if (!addMoveIfValid(row, col, i, j, moves)) break;
+                    if (!addMoveIfValid(row, col, i, j)) break;
                     i += dRow;
                     j += dCol;
                 }
@@ -275,17 +312,17 @@ public class ChessEngine {
         }
     }
 
-    private static void generatePawnMoves(int row, int col, List<int[]> moves, boolean isWhite) {
+    private static void generatePawnMoves(int row, int col, boolean isWhite) {
         int forward = isWhite ? 1 : -1;
         int startRow = isWhite ? 1 : 6;
         int newRow = row + forward;
 
         // Straight move
         if (newRow >= 0 && newRow < 8 && board[newRow][col] == ' ') {
-            addMoveIfValid(row, col, newRow, col, moves);
+            addMoveIfValid(row, col, newRow, col);
             // Double move from start position
             if (row == startRow && board[newRow + forward][col] == ' ') {
-                addMoveIfValid(row, col, newRow + forward, col, moves);
+                addMoveIfValid(row, col, newRow + forward, col);
             }
         }
         // Captures
@@ -294,15 +331,15 @@ public class ChessEngine {
             if (newRow >= 0 && newRow < 8 && captureCol >= 0 && captureCol < 8
                     && board[newRow][captureCol] != ' '
                     && Character.isUpperCase(board[row][col]) != Character.isUpperCase(board[newRow][captureCol])) {
-                addMoveIfValid(row, col, newRow, captureCol, moves);
+                addMoveIfValid(row, col, newRow, captureCol);
             }
         }
     }
 
-    private static boolean addMoveIfValid(int startRow, int startCol, int endRow, int endCol, List<int[]> moves) {
+    private static boolean addMoveIfValid(int startRow, int startCol, int endRow, int endCol) {
         if (endRow >= 0 && endRow < 8 && endCol >= 0 && endCol < 8) {
             if (board[endRow][endCol] == ' ' || Character.isUpperCase(board[startRow][startCol]) != Character.isUpperCase(board[endRow][endCol])) {
-                moves.add(new int[]{startRow, startCol, endRow, endCol});
+                moveBuffer[moveCount++] = Move.encode(startRow * 8 + startCol, endRow * 8 + endCol, Move.QUIET);
                 return board[endRow][endCol] == ' '; // Continue if empty
             }
         }
@@ -318,36 +355,42 @@ public class ChessEngine {
 
         if (maximizingPlayer) {
             int maxEval = Integer.MIN_VALUE;
-            for (int[] move : generateMoves(true)) { // Assuming true for White
-                char capturedPiece = board[move[2]][move[3]];
-                makeMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]});
-                if (!isCheck(isWhiteTurn)) { // Only consider moves that do not put White in check
+            int[] moves = moveBuffers[depth];
+            int count = generateMoves(true, moves); // Assuming true for White
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                char capturedPiece = board[Move.to(move) >>> 3][Move.to(move) & 7];
+                makeMove(move);
+                if (!isCheck(true)) { // Only consider moves that do not put White in check
                     int eval = alphaBeta(depth - 1, alpha, beta, false);
                     maxEval = Math.max(maxEval, eval);
                     alpha = Math.max(alpha, maxEval);
                     if (beta <= alpha) {
-                        undoMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]}, capturedPiece);
+                        undoMove(move, capturedPiece);
                         break;
                     }
                 }
-                undoMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]}, capturedPiece);
+                undoMove(move, capturedPiece);
             }
             return maxEval;
         } else {
             int minEval = Integer.MAX_VALUE;
-            for (int[] move : generateMoves(false)) { // Assuming false for Black
-                char capturedPiece = board[move[2]][move[3]];
-                makeMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]});
-                if (!isCheck(!isWhiteTurn)) { // Only consider moves that do not put Black in check
+            int[] moves = moveBuffers[depth];
+            int count = generateMoves(false, moves); // Assuming false for Black
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                char capturedPiece = board[Move.to(move) >>> 3][Move.to(move) & 7];
+                makeMove(move);
+                if (!isCheck(false)) { // Only consider moves that do not put Black in check
                     int eval = alphaBeta(depth - 1, alpha, beta, true);
                     minEval = Math.min(minEval, eval);
                     beta = Math.min(beta, minEval);
                     if (beta <= alpha) {
-                        undoMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]}, capturedPiece);
+                        undoMove(move, capturedPiece);
                         break;
                     }
                 }
-                undoMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]}, capturedPiece);
+                undoMove(move, capturedPiece);
             }
             return minEval;
         }
@@ -373,7 +416,7 @@ public class ChessEngine {
             return false;
         }
 
-        makeMove(start, end);
+        makeMove(Move.encode(start[0] * 8 + start[1], end[0] * 8 + end[1], Move.QUIET));
         return true;
     }
 
@@ -447,22 +490,24 @@ public class ChessEngine {
         return true;
     }
 
-    private static boolean isCheck(boolean isWhiteTurn) {
-        int[] kingPos = findKing();
-        System.out.println("King position: " + Arrays.toString(kingPos));
-        return isSquareAttacked(kingPos[0], kingPos[1], isWhiteTurn);
+    // Whether the given side's king is attacked
+    private static boolean isCheck(boolean isWhite) {
+        int king = kingSquare[isWhite ? 0 : 1];
+        return isSquareAttacked(king >>> 3, king & 7, !isWhite);
     }
 
     private static boolean isCheckmate() {
         if (!isCheck(isWhiteTurn)) {
             return false;
         }
-        List<int[]> moves = generateMoves(isWhiteTurn);
-        for (int[] move : moves) {
-            char capturedPiece = board[move[2]][move[3]];
-            makeMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]});
+        int[] moves = moveBuffers[ROOT_BUFFER];
+        int count = generateMoves(isWhiteTurn, moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            char capturedPiece = board[Move.to(move) >>> 3][Move.to(move) & 7];
+            makeMove(move);
             boolean stillInCheck = isCheck(isWhiteTurn);
-            undoMove(new int[]{move[0], move[1]}, new int[]{move[2], move[3]}, capturedPiece);
+            undoMove(move, capturedPiece);
             if (!stillInCheck) {
                 return false;
             }
@@ -470,28 +515,54 @@ public class ChessEngine {
         return true;
     }
 
-    private static int[] findKing() {
-        char king = isWhiteTurn ? 'K' : 'k';
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (board[i][j] == king) {
-                    return new int[]{i, j};
+    // Works outward from the target square instead of generating every enemy move
+    private static boolean isSquareAttacked(int row, int col, boolean byWhite) {
+        // Pawns attack diagonally forward, so look one row behind the square from the attacker's side
+        int pawnRow = byWhite ? row - 1 : row + 1;
+        char pawn = byWhite ? 'P' : 'p';
+        if (pieceAt(pawnRow, col - 1) == pawn || pieceAt(pawnRow, col + 1) == pawn) {
+            return true;
+        }
+        char knight = byWhite ? 'N' : 'n';
+        for (int[] jump : KNIGHT_JUMPS) {
+            if (pieceAt(row + jump[0], col + jump[1]) == knight) {
+                return true;
+            }
+        }
+        char king = byWhite ? 'K' : 'k';
+        for (int dRow = -1; dRow <= 1; dRow++) {
+            for (int dCol = -1; dCol <= 1; dCol++) {
+                if ((dRow != 0 || dCol != 0) && pieceAt(row + dRow, col + dCol) == king) {
+                    return true;
                 }
             }
         }
-        throw new IllegalStateException("King not found on the board");
-    }
-
-    private static boolean isSquareAttacked(int row, int col, boolean byWhite) {
-        List<int[]> moves = generateMoves(!byWhite);
-        for (int[] move : moves) {
-            if (move[2] == row && move[3] == col) {
-                return true;
+        // Sliders: follow each ray to the first piece
+        char queen = byWhite ? 'Q' : 'q';
+        char rook = byWhite ? 'R' : 'r';
+        char bishop = byWhite ? 'B' : 'b';
+        for (int dRow = -1; dRow <= 1; dRow++) {
+            for (int dCol = -1; dCol <= 1; dCol++) {
+                if (dRow == 0 && dCol == 0) continue;
+                char slider = dRow == 0 || dCol == 0 ? rook : bishop;
+                int i = row + dRow, j = col + dCol;
+                while (i >= 0 && i < 8 && j >= 0 && j < 8 && board[i][j] == ' ') {
+                    i += dRow;
+                    j += dCol;
+                }
+                char piece = pieceAt(i, j);
+                if (piece == slider || piece == queen) {
+                    return true;
+                }
             }
         }
         return false;
     }
 
+    private static char pieceAt(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8 ? board[row][col] : ' ';
+    }
+
     private static int[] parsePosition(String position) {
         if (position.length() != 2) return null;
         int file = position.charAt(0) - 'a';
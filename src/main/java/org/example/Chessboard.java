@@ -1,24 +1,189 @@
 package org.example;
 
-import java.util.List;
+import java.util.Arrays;
 
 public class Chessboard {
     private static final int MAX_DEPTH = 5;
-    private static int[] nodeCount;
-    private final char[][] board;
+
+    // Castling rights
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    // Rights that survive a move touching each square (king and rook home squares clear theirs)
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[0] = ~WHITE_QUEENSIDE & 15;  // a1
+        CASTLING_MASK[4] = ~(WHITE_KINGSIDE | WHITE_QUEENSIDE) & 15;  // e1
+        CASTLING_MASK[7] = ~WHITE_KINGSIDE & 15;  // h1
+        CASTLING_MASK[56] = ~BLACK_QUEENSIDE & 15;  // a8
+        CASTLING_MASK[60] = ~(BLACK_KINGSIDE | BLACK_QUEENSIDE) & 15;  // e8
+        CASTLING_MASK[63] = ~BLACK_KINGSIDE & 15;  // h8
+    }
+
+    // Position: one bitboard per coloured piece, occupancy per colour and a square-to-piece lookup
+    private final long[] pieces = new long[Piece.COUNT];
+    private final long[] occupancy = new long[2];
+    private final int[] mailbox = new int[64];
+    private final int[] kingSquare = new int[2]; // Kept up to date by placePiece
+    private boolean whiteToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private long zobristKey;
+    private long pawnKey; // Zobrist key of the pawns alone, for the pawn hash table
+
+    // Running evaluation terms (White minus Black), kept up to date by placePiece/removePiece
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+
+    // State needed to undo each move made so far
+    private int historyPly;
+    private int[] capturedHistory = new int[256];
+    private int[] castlingHistory = new int[256];
+    private int[] enPassantHistory = new int[256];
+    private int[] halfmoveHistory = new int[256];
+    private long[] keyHistory = new long[256];
+
     private final Evaluation evaluation;
     private final MoveGenerator moveGenerator;
+    private SearchPool searchPool; // Created on first use so board copies don't allocate a hash table
+    private PolyglotBook book;
+    private PolyglotBook.Selection bookSelection = PolyglotBook.Selection.WEIGHTED;
+    private Bitbases bitbases; // Shared with board copies, so search threads probe the same tables
 
     public Chessboard() {
-        this.board = new char[8][8];
         initializeBoard();
-        nodeCount = new int[MAX_DEPTH + 1];
         this.evaluation = new Evaluation(this);  // Assuming Evaluation is properly defined
         this.moveGenerator = new MoveGenerator(this);  // Assuming MoveGenerator is properly defined
     }
 
-    public char[][] getBoard() {
-        return board;
+    public Chessboard(String fen) {
+        this();
+        setFen(fen);
+    }
+
+    // Copies the position and its move history, e.g. for a search thread
+    public Chessboard(Chessboard other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        System.arraycopy(other.kingSquare, 0, kingSquare, 0, kingSquare.length);
+        whiteToMove = other.whiteToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        zobristKey = other.zobristKey;
+        pawnKey = other.pawnKey;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        historyPly = other.historyPly;
+        capturedHistory = other.capturedHistory.clone();
+        castlingHistory = other.castlingHistory.clone();
+        enPassantHistory = other.enPassantHistory.clone();
+        halfmoveHistory = other.halfmoveHistory.clone();
+        keyHistory = other.keyHistory.clone();
+        bitbases = other.bitbases;
+        this.evaluation = new Evaluation(this);
+        this.moveGenerator = new MoveGenerator(this);
+    }
+
+    public long getPieces(int piece) {
+        return pieces[piece];
+    }
+
+    public long getPieces(int colour, int type) {
+        return pieces[Piece.make(colour, type)];
+    }
+
+    public long getOccupancy(int colour) {
+        return occupancy[colour];
+    }
+
+    public long getOccupied() {
+        return occupancy[Piece.WHITE] | occupancy[Piece.BLACK];
+    }
+
+    public int pieceOn(int square) {
+        return mailbox[square];
+    }
+
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getKingSquare(int colour) {
+        return kingSquare[colour];
+    }
+
+    public char pieceAt(int row, int col) {
+        return Piece.toChar(mailbox[Bitboards.square(row, col)]);
+    }
+
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    public void setHashSize(int sizeMb) {
+        if (searchPool == null) {
+            searchPool = new SearchPool(sizeMb); // Skips allocating the default size only to replace it
+        } else {
+            searchPool.setHashSize(sizeMb);
+        }
+    }
+
+    public void setEvalCacheSize(int sizeMb) {
+        getSearchPool().setEvalCacheSize(sizeMb);
+    }
+
+    public void setThreads(int threadCount) {
+        getSearchPool().setThreads(threadCount);
+    }
+
+    public SearchPool getSearchPool() {
+        if (searchPool == null) {
+            searchPool = new SearchPool();
+        }
+        return searchPool;
     }
 
     public String printBoard() {
@@ -29,7 +194,7 @@ public class Chessboard {
         for (int rank = 7; rank >= 0; rank--) {
             sb.append(rank + 1).append(" |");
             for (int file = 0; file < 8; file++) {
-                char piece = board[rank][file];
+                char piece = pieceAt(rank, file);
                 sb.append("  ").append(piece).append(" |");
             }
             sb.append("  ").append(rank + 1).append("th rank\n");
@@ -51,21 +216,35 @@ public class Chessboard {
     }
 
     public boolean processMove(String moveInput, boolean isWhiteTurn) {
-        String[] parts = moveInput.trim().split("[-\\s]+");  // assuming input like "e2 e4" or "e2-e4"
+        String[] parts = moveInput.trim().split("[-\\s]+");  // assuming input like "e2 e4", "e2-e4" or "e7 e8q"
         if (parts.length != 2) {
             System.out.println("Invalid format. Use the format 'e2 e4' or 'e2-e4'.");
             return false;
         }
 
+        int promotionType = Piece.QUEEN;
+        if (parts[1].length() == 3) {
+            promotionType = Piece.type(Piece.fromChar(Character.toUpperCase(parts[1].charAt(2))));
+            parts[1] = parts[1].substring(0, 2);
+        }
         int[] start = parsePosition(parts[0]);
         int[] end = parsePosition(parts[1]);
-        if (start == null || end == null) {
+        if (start == null || end == null || promotionType < Piece.KNIGHT || promotionType > Piece.QUEEN) {
             System.out.println("Invalid positions. Ensure positions are within 'a1' to 'h8'.");
             return false;
         }
 
-        Move proposedMove = new Move(start[0], start[1], end[0], end[1]);
-        if (!moveGenerator.isMoveValid(proposedMove)) {
+        // Pick up the flags (castling, en passant, promotion) from the matching generated move
+        Move proposedMove = null;
+        for (Move move : moveGenerator.generateMoves(isWhiteTurn)) {
+            if (move.getStartRow() == start[0] && move.getStartCol() == start[1]
+                    && move.getEndRow() == end[0] && move.getEndCol() == end[1]
+                    && (!move.isPromotion() || move.getPromotionType() == promotionType)) {
+                proposedMove = move;
+                break;
+            }
+        }
+        if (proposedMove == null || !moveGenerator.isMoveValid(proposedMove)) {
             System.out.println("Invalid move for the piece. Try again.");
             return false;
         }
@@ -76,108 +255,437 @@ public class Chessboard {
 
 
     public Move findBestMove(boolean isWhite) {
-        int bestVal = isWhite ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-        Move bestMove = null;
-        List<Move> moves = moveGenerator.generateMoves(isWhite);
-
-        for (Move move : moves) {
-            char capturedPiece = board[move.getEndRow()][move.getEndCol()];
-            makeMove(move);
-            int moveVal = alphaBeta(MAX_DEPTH - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, !isWhite);
-            undoMove(move, capturedPiece);
-
-            if (isWhite ? moveVal > bestVal : moveVal < bestVal) {  // Maximizing for white, minimizing for black
-                bestVal = moveVal;
-                bestMove = move;
+        return findBestMove(isWhite, SearchLimits.depth(MAX_DEPTH));
+    }
+
+    // The search is always for the side to move; isWhite must name it, so a caller that lost track of the turn
+    // finds out instead of getting a move for the other side
+    public Move findBestMove(boolean isWhite, SearchLimits limits) {
+        if (isWhite != whiteToMove) {
+            throw new IllegalArgumentException((isWhite ? "White" : "Black") + " is not to move");
+        }
+        // Known openings are played from the book without searching; analysis (infinite or ponder) always searches
+        if (book != null && !limits.isInfinite() && !limits.isPonder()) {
+            Move bookMove = book.probe(this, bookSelection);
+            if (bookMove != null) {
+                return bookMove;
             }
         }
-        return bestMove;
+        return getSearchPool().search(this, limits);
     }
 
+    // Null turns the book off
+    public void setBook(PolyglotBook book, PolyglotBook.Selection selection) {
+        this.book = book;
+        this.bookSelection = selection;
+    }
+
+    // Null turns the endgame bitbases off
+    public void setBitbases(Bitbases bitbases) {
+        this.bitbases = bitbases;
+        if (searchPool != null) {
+            searchPool.clearEvalCaches(); // Cached scores may have come from the old tables
+        }
+    }
+
+    public Bitbases getBitbases() {
+        return bitbases;
+    }
+
+    // Can be called from another thread; the search returns its last completed result shortly after
+    public void stop() {
+        if (searchPool != null) {
+            searchPool.stop();
+        }
+    }
+
+    public long getNodes() {
+        return getSearchPool().getNodes();
+    }
+
+    public int getCompletedDepth() {
+        return getSearchPool().getCompletedDepth();
+    }
+
+    public int getLastScore() {
+        return getSearchPool().getLastScore();
+    }
 
     public void makeMove(Move move) {
-        board[move.getEndRow()][move.getEndCol()] = board[move.getStartRow()][move.getStartCol()];
-        board[move.getStartRow()][move.getStartCol()] = ' ';
+        makeMove(move.toCode());
     }
 
-    private void undoMove(Move move, char capturedPiece) {
-        board[move.getStartRow()][move.getStartCol()] = board[move.getEndRow()][move.getEndCol()];
-        board[move.getEndRow()][move.getEndCol()] = capturedPiece;
+    public void undoMove(Move move) {
+        undoMove(move.toCode());
     }
 
-    private void initializeBoard() {
-        // Setup board with pieces in initial positions
-        board[0] = new char[]{'R', 'N', 'B', 'Q', 'K', 'B', 'N', 'R'}; // White major pieces
-        board[1] = new char[]{'P', 'P', 'P', 'P', 'P', 'P', 'P', 'P'}; // White pawns
-        for (int i = 2; i < 6; i++) { // Empty squares
-            for (int j = 0; j < 8; j++) {
-                board[i][j] = ' ';
-            }
+    public void makeMove(int move) {
+        if (historyPly == capturedHistory.length) {
+            growHistory();
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = mailbox[from];
+        int us = Piece.colour(piece);
+
+        capturedHistory[historyPly] = mailbox[to];
+        castlingHistory[historyPly] = castlingRights;
+        enPassantHistory[historyPly] = enPassantSquare;
+        halfmoveHistory[historyPly] = halfmoveClock;
+        keyHistory[historyPly] = zobristKey;
+        historyPly++;
+
+        halfmoveClock++;
+        if (enPassantSquare != -1) {
+            zobristKey ^= Zobrist.EN_PASSANT_KEYS[Bitboards.col(enPassantSquare)];
+            enPassantSquare = -1;
         }
-        board[6] = new char[]{'p', 'p', 'p', 'p', 'p', 'p', 'p', 'p'}; // Black pawns
-        board[7] = new char[]{'r', 'n', 'b', 'q', 'k', 'b', 'n', 'r'}; // Black major pieces
+        if (flags == Move.EN_PASSANT) {
+            removePiece(to + (us == Piece.WHITE ? -8 : 8));
+        } else if (mailbox[to] != Piece.NONE) {
+            removePiece(to);
+        }
+        if (Piece.type(piece) == Piece.PAWN || Move.isCapture(move)) {
+            halfmoveClock = 0;
+        }
+
+        removePiece(from);
+        placePiece(Move.isPromotion(move) ? Piece.make(us, Move.promotionType(move)) : piece, to);
+
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            enPassantSquare = (from + to) / 2;
+            zobristKey ^= Zobrist.EN_PASSANT_KEYS[Bitboards.col(enPassantSquare)];
+        } else if (flags == Move.KING_CASTLE) {
+            removePiece(to + 1);
+            placePiece(Piece.make(us, Piece.ROOK), to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            removePiece(to - 2);
+            placePiece(Piece.make(us, Piece.ROOK), to + 1);
+        }
+
+        zobristKey ^= Zobrist.CASTLING_KEYS[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        zobristKey ^= Zobrist.CASTLING_KEYS[castlingRights];
+        if (!whiteToMove) {
+            fullmoveNumber++;
+        }
+        whiteToMove = !whiteToMove;
+        zobristKey ^= Zobrist.SIDE_KEY;
+        assert zobristKey == Zobrist.computeKey(this) : "Zobrist key out of sync after makeMove";
+        assert pawnKey == Zobrist.computePawnKey(this) : "Pawn key out of sync after makeMove";
     }
 
-    public int[] parsePosition(String position) {
-        if (position.length() != 2) return null;
-        int file = position.charAt(0) - 'a';
-        int rank = position.charAt(1) - '1';
-        if (file < 0 || file >= 8 || rank < 0 || rank >= 8) return null;
-        return new int[]{rank, file};
+    // Passes the turn without moving, for null-move pruning. Only the side to move and the en passant square change.
+    public void makeNullMove() {
+        if (historyPly == capturedHistory.length) {
+            growHistory();
+        }
+        capturedHistory[historyPly] = Piece.NONE;
+        castlingHistory[historyPly] = castlingRights;
+        enPassantHistory[historyPly] = enPassantSquare;
+        halfmoveHistory[historyPly] = halfmoveClock;
+        keyHistory[historyPly] = zobristKey;
+        historyPly++;
+
+        halfmoveClock++;
+        if (enPassantSquare != -1) {
+            zobristKey ^= Zobrist.EN_PASSANT_KEYS[Bitboards.col(enPassantSquare)];
+            enPassantSquare = -1;
+        }
+        whiteToMove = !whiteToMove;
+        zobristKey ^= Zobrist.SIDE_KEY;
+        assert zobristKey == Zobrist.computeKey(this) : "Zobrist key out of sync after makeNullMove";
     }
 
-    private boolean isValidMove(int[] start, int[] end) {
-        // This should use the MoveGenerator to validate moves
-        return moveGenerator.isMoveValid(new Move(start[0], start[1], end[0], end[1]));
+    public void undoNullMove() {
+        historyPly--;
+        whiteToMove = !whiteToMove;
+        enPassantSquare = enPassantHistory[historyPly];
+        halfmoveClock = halfmoveHistory[historyPly];
+        zobristKey = keyHistory[historyPly];
     }
 
-    public boolean checkGameOver() {
-        // Implement game over conditions
-        return false;
+    public void undoMove(int move) {
+        historyPly--;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = mailbox[to];
+        int us = Piece.colour(piece);
+
+        whiteToMove = !whiteToMove;
+        if (!whiteToMove) {
+            fullmoveNumber--;
+        }
+        castlingRights = castlingHistory[historyPly];
+        enPassantSquare = enPassantHistory[historyPly];
+        halfmoveClock = halfmoveHistory[historyPly];
+
+        if (flags == Move.KING_CASTLE) {
+            removePiece(to - 1);
+            placePiece(Piece.make(us, Piece.ROOK), to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            removePiece(to + 1);
+            placePiece(Piece.make(us, Piece.ROOK), to - 2);
+        }
+
+        removePiece(to);
+        placePiece(Move.isPromotion(move) ? Piece.make(us, Piece.PAWN) : piece, from);
+
+        int captured = capturedHistory[historyPly];
+        if (flags == Move.EN_PASSANT) {
+            placePiece(Piece.make(us ^ 1, Piece.PAWN), to + (us == Piece.WHITE ? -8 : 8));
+        } else if (captured != Piece.NONE) {
+            placePiece(captured, to);
+        }
+        zobristKey = keyHistory[historyPly]; // Piece updates above touched the key; the saved one is exact
+        assert zobristKey == Zobrist.computeKey(this) : "Zobrist key out of sync after undoMove";
+        assert pawnKey == Zobrist.computePawnKey(this) : "Pawn key out of sync after undoMove";
+    }
+
+    void placePiece(int piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        occupancy[Piece.colour(piece)] |= bit;
+        mailbox[square] = piece;
+        zobristKey ^= Zobrist.PIECE_KEYS[piece][square];
+        if (Piece.type(piece) == Piece.PAWN) {
+            pawnKey ^= Zobrist.PIECE_KEYS[piece][square];
+        }
+        middlegameScore += Evaluation.MIDDLEGAME_SCORES[piece][square];
+        endgameScore += Evaluation.ENDGAME_SCORES[piece][square];
+        phase += Evaluation.PHASE_WEIGHT[piece];
+        if (Piece.type(piece) == Piece.KING) {
+            kingSquare[Piece.colour(piece)] = square;
+        }
+    }
+
+    private void removePiece(int square) {
+        int piece = mailbox[square];
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        occupancy[Piece.colour(piece)] &= ~bit;
+        mailbox[square] = Piece.NONE;
+        zobristKey ^= Zobrist.PIECE_KEYS[piece][square];
+        if (Piece.type(piece) == Piece.PAWN) {
+            pawnKey ^= Zobrist.PIECE_KEYS[piece][square];
+        }
+        middlegameScore -= Evaluation.MIDDLEGAME_SCORES[piece][square];
+        endgameScore -= Evaluation.ENDGAME_SCORES[piece][square];
+        phase -= Evaluation.PHASE_WEIGHT[piece];
     }
 
-    private int alphaBeta(int depth, int alpha, int beta, boolean maximizingPlayer) {
-        nodeCount[depth]++; // Increment node count at the current depth
+    private void growHistory() {
+        int size = capturedHistory.length * 2;
+        capturedHistory = Arrays.copyOf(capturedHistory, size);
+        castlingHistory = Arrays.copyOf(castlingHistory, size);
+        enPassantHistory = Arrays.copyOf(enPassantHistory, size);
+        halfmoveHistory = Arrays.copyOf(halfmoveHistory, size);
+        keyHistory = Arrays.copyOf(keyHistory, size);
+    }
 
-        if (depth == 0 || checkGameOver()) {  // Also check for game over condition
-            return evaluation.evaluateBoard(maximizingPlayer);
+    private void initializeBoard() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(mailbox, Piece.NONE);
+        middlegameScore = endgameScore = phase = 0;
+        // Setup board with pieces in initial positions
+        String backRank = "RNBQKBNR";
+        for (int col = 0; col < 8; col++) {
+            placePiece(Piece.fromChar(backRank.charAt(col)), Bitboards.square(0, col)); // White major pieces
+            placePiece(Piece.make(Piece.WHITE, Piece.PAWN), Bitboards.square(1, col)); // White pawns
+            placePiece(Piece.make(Piece.BLACK, Piece.PAWN), Bitboards.square(6, col)); // Black pawns
+            placePiece(Piece.fromChar(Character.toLowerCase(backRank.charAt(col))), Bitboards.square(7, col)); // Black major pieces
         }
+        whiteToMove = true;
+        castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        historyPly = 0;
+        zobristKey = Zobrist.computeKey(this);
+        pawnKey = Zobrist.computePawnKey(this);
+    }
 
-        if (maximizingPlayer) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : moveGenerator.generateMoves(true)) { // Assuming true for White
-                char capturedPiece = board[move.getEndRow()][move.getEndCol()];
-                makeMove(move);  // Now using Move object
-                if (!moveGenerator.isKingInCheck(true)) { // Only consider moves that do not put White in check
-                    int eval = alphaBeta(depth - 1, alpha, beta, false);
-                    maxEval = Math.max(maxEval, eval);
-                    alpha = Math.max(alpha, maxEval);
-                    if (beta <= alpha) {
-                        undoMove(move, capturedPiece); // Now using Move object
-                        break;
-                    }
+    // Sets up the position from a FEN string; the move counters are optional. Everything is parsed and checked
+    // before the board is touched, so a rejected FEN leaves the previous position in place.
+    public void setFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Incomplete FEN: " + fen);
+        }
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);
+        }
+        int[] squares = new int[64];
+        Arrays.fill(squares, Piece.NONE);
+        long[] bitboards = new long[Piece.COUNT];
+        for (int i = 0; i < 8; i++) {
+            int row = 7 - i; // FEN lists the 8th rank first
+            int col = 0;
+            for (char c : ranks[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else if (Piece.fromChar(c) != Piece.NONE && col < 8) {
+                    int piece = Piece.fromChar(c);
+                    int square = Bitboards.square(row, col++);
+                    squares[square] = piece;
+                    bitboards[piece] |= 1L << square;
+                } else {
+                    throw new IllegalArgumentException("Bad rank '" + ranks[i] + "' in FEN: " + fen);
                 }
-                undoMove(move, capturedPiece); // Now using Move object
             }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : moveGenerator.generateMoves(false)) { // Assuming false for Black
-                char capturedPiece = board[move.getEndRow()][move.getEndCol()];
-                makeMove(move);  // Now using Move object
-                if (!moveGenerator.isKingInCheck(false)) { // Only consider moves that do not put Black in check
-                    int eval = alphaBeta(depth - 1, alpha, beta, true);
-                    minEval = Math.min(minEval, eval);
-                    beta = Math.min(beta, minEval);
-                    if (beta <= alpha) {
-                        undoMove(move, capturedPiece); // Now using Move object
-                        break;
-                    }
+            if (col != 8) {
+                throw new IllegalArgumentException("Bad rank '" + ranks[i] + "' in FEN: " + fen);
+            }
+        }
+        long whiteKing = bitboards[Piece.make(Piece.WHITE, Piece.KING)];
+        long blackKing = bitboards[Piece.make(Piece.BLACK, Piece.KING)];
+        if (Long.bitCount(whiteKing) != 1 || Long.bitCount(blackKing) != 1) {
+            throw new IllegalArgumentException("FEN needs one king per side: " + fen);
+        }
+        if ((Bitboards.KING_ATTACKS[Long.numberOfTrailingZeros(whiteKing)] & blackKing) != 0) {
+            throw new IllegalArgumentException("Kings next to each other in FEN: " + fen);
+        }
+        long pawns = bitboards[Piece.make(Piece.WHITE, Piece.PAWN)] | bitboards[Piece.make(Piece.BLACK, Piece.PAWN)];
+        if ((pawns & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+            throw new IllegalArgumentException("Pawn on the first or last rank in FEN: " + fen);
+        }
+
+        if (!fields[1].equals("w") && !fields[1].equals("b")) {
+            throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+        }
+        boolean white = fields[1].equals("w");
+        int us = white ? Piece.WHITE : Piece.BLACK;
+        if (isAttacked(bitboards, Long.numberOfTrailingZeros(white ? blackKing : whiteKing), us)) {
+            throw new IllegalArgumentException("Side not to move is in check in FEN: " + fen);
+        }
+        int rights = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> rights |= WHITE_KINGSIDE;
+                case 'Q' -> rights |= WHITE_QUEENSIDE;
+                case 'k' -> rights |= BLACK_KINGSIDE;
+                case 'q' -> rights |= BLACK_QUEENSIDE;
+                case '-' -> { }
+                default -> throw new IllegalArgumentException("Bad castling rights in FEN: " + fen);
+            }
+        }
+        // A right is only kept while its king and rook are still on their home squares
+        rights &= castlingRight(squares, Piece.WHITE, 4, 7, WHITE_KINGSIDE)
+                | castlingRight(squares, Piece.WHITE, 4, 0, WHITE_QUEENSIDE)
+                | castlingRight(squares, Piece.BLACK, 60, 63, BLACK_KINGSIDE)
+                | castlingRight(squares, Piece.BLACK, 60, 56, BLACK_QUEENSIDE);
+
+        int enPassant = -1;
+        if (!fields[3].equals("-")) {
+            int[] square = parsePosition(fields[3]);
+            if (square == null) {
+                throw new IllegalArgumentException("Bad en passant square in FEN: " + fen);
+            }
+            enPassant = Bitboards.square(square[0], square[1]);
+            // Only right after a double push: the square behind the pawn that made it, with both skipped squares empty
+            int forward = white ? 8 : -8;
+            if (square[0] != (white ? 5 : 2) || squares[enPassant] != Piece.NONE || squares[enPassant + forward] != Piece.NONE
+                    || squares[enPassant - forward] != Piece.make(us ^ 1, Piece.PAWN)) {
+                throw new IllegalArgumentException("Impossible en passant square in FEN: " + fen);
+            }
+        }
+        int halfmoves;
+        int fullmoves;
+        try {
+            halfmoves = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            fullmoves = fields.length > 5 ? Math.max(1, Integer.parseInt(fields[5])) : 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad move counters in FEN: " + fen);
+        }
+
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(mailbox, Piece.NONE);
+        middlegameScore = endgameScore = phase = 0;
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != Piece.NONE) {
+                placePiece(squares[square], square);
+            }
+        }
+        whiteToMove = white;
+        castlingRights = rights;
+        enPassantSquare = enPassant;
+        halfmoveClock = halfmoves;
+        fullmoveNumber = fullmoves;
+        historyPly = 0;
+        zobristKey = Zobrist.computeKey(this);
+        pawnKey = Zobrist.computePawnKey(this);
+    }
+
+    // Whether the pieces of byColour attack the square, on a board given as one bitboard per piece
+    private static boolean isAttacked(long[] bitboards, int square, int byColour) {
+        long occupied = 0L;
+        for (long bitboard : bitboards) {
+            occupied |= bitboard;
+        }
+        long queens = bitboards[Piece.make(byColour, Piece.QUEEN)];
+        return (Bitboards.PAWN_ATTACKS[byColour ^ 1][square] & bitboards[Piece.make(byColour, Piece.PAWN)]) != 0
+                || (Bitboards.KNIGHT_ATTACKS[square] & bitboards[Piece.make(byColour, Piece.KNIGHT)]) != 0
+                || (Bitboards.KING_ATTACKS[square] & bitboards[Piece.make(byColour, Piece.KING)]) != 0
+                || (Bitboards.bishopAttacks(square, occupied) & (bitboards[Piece.make(byColour, Piece.BISHOP)] | queens)) != 0
+                || (Bitboards.rookAttacks(square, occupied) & (bitboards[Piece.make(byColour, Piece.ROOK)] | queens)) != 0;
+    }
+
+    private static int castlingRight(int[] squares, int colour, int kingSquare, int rookSquare, int right) {
+        return squares[kingSquare] == Piece.make(colour, Piece.KING) && squares[rookSquare] == Piece.make(colour, Piece.ROOK) ? right : 0;
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = mailbox[Bitboards.square(row, col)];
+                if (piece == Piece.NONE) {
+                    empty++;
+                    continue;
                 }
-                undoMove(move, capturedPiece); // Now using Move object
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(Piece.toChar(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
             }
-            return minEval;
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(whiteToMove ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
         }
+        if ((castlingRights & WHITE_KINGSIDE) != 0) fen.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) fen.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) fen.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) fen.append('q');
+        fen.append(' ').append(enPassantSquare == -1 ? "-" : Move.squareName(enPassantSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    public int[] parsePosition(String position) {
+        if (position.length() != 2) return null;
+        int file = position.charAt(0) - 'a';
+        int rank = position.charAt(1) - '1';
+        if (file < 0 || file >= 8 || rank < 0 || rank >= 8) return null;
+        return new int[]{rank, file};
+    }
+
+    public boolean checkGameOver() {
+        // Implement game over conditions
+        return false;
     }
 
 }
@@ -0,0 +1,116 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One EPD record: the first four FEN fields followed by "opcode operand;" operations, e.g.
+// r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - bm Bb5; id "opening.001";
+// Full six-field FEN lines are accepted too, so a plain FEN file is a valid input.
+public class Epd {
+    private final String position; // Placement, side, castling and en passant fields
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private final Map<String, String> operations = new LinkedHashMap<>();
+
+    private Epd(String position) {
+        this.position = position;
+    }
+
+    public static Epd parse(String line) {
+        String[] fields = line.trim().split("\\s+", 5);
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Incomplete EPD: " + line);
+        }
+        Epd epd = new Epd(fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3]);
+        String rest = fields.length > 4 ? fields[4] : "";
+
+        // FEN move counters, if present, come before any operation
+        String[] counters = rest.split("\\s+", 3);
+        if (counters.length >= 2 && counters[0].matches("\\d+") && counters[1].matches("\\d+")) {
+            epd.halfmoveClock = Integer.parseInt(counters[0]);
+            epd.fullmoveNumber = Integer.parseInt(counters[1]);
+            rest = counters.length > 2 ? counters[2] : "";
+        }
+
+        // Operations end with ';', which may also appear inside a quoted operand
+        StringBuilder operation = new StringBuilder();
+        boolean quoted = false;
+        for (char c : rest.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            if (c == ';' && !quoted) {
+                epd.addOperation(operation.toString());
+                operation.setLength(0);
+            } else {
+                operation.append(c);
+            }
+        }
+        epd.addOperation(operation.toString());
+
+        if (epd.operations.containsKey("hmvc")) {
+            epd.halfmoveClock = Integer.parseInt(epd.operations.get("hmvc"));
+        }
+        if (epd.operations.containsKey("fmvn")) {
+            epd.fullmoveNumber = Integer.parseInt(epd.operations.get("fmvn"));
+        }
+        return epd;
+    }
+
+    private void addOperation(String operation) {
+        String trimmed = operation.trim();
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        int space = trimmed.indexOf(' ');
+        if (space < 0) {
+            operations.put(trimmed, "");
+        } else {
+            operations.put(trimmed.substring(0, space), trimmed.substring(space + 1).trim());
+        }
+    }
+
+    // The record for a board position, with no operations
+    public static Epd of(Chessboard board) {
+        String[] fields = board.toFen().split(" ");
+        Epd epd = new Epd(fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3]);
+        epd.halfmoveClock = board.getHalfmoveClock();
+        epd.fullmoveNumber = board.getFullmoveNumber();
+        return epd;
+    }
+
+    public String getFen() {
+        return position + " " + halfmoveClock + " " + fullmoveNumber;
+    }
+
+    public Chessboard toBoard() {
+        return new Chessboard(getFen());
+    }
+
+    // The operand of an operation, "" for one without operands, or null if it is absent
+    public String getOperation(String opcode) {
+        return operations.get(opcode);
+    }
+
+    public Map<String, String> getOperations() {
+        return operations;
+    }
+
+    public Epd setOperation(String opcode, String operand) {
+        operations.put(opcode, operand);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder epd = new StringBuilder(position);
+        for (Map.Entry<String, String> operation : operations.entrySet()) {
+            epd.append(' ').append(operation.getKey());
+            if (!operation.getValue().isEmpty()) {
+                epd.append(' ').append(operation.getValue());
+            }
+            epd.append(';');
+        }
+        return epd.toString();
+    }
+}
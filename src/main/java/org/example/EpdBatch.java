@@ -0,0 +1,167 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Analyses an EPD file line by line on a pool of workers, each with its own board and hash table, and writes
+// every record back with the standard analysis operations added: acd (depth), acn (nodes), ce (centipawns for
+// the side to move; a mate in n plies is Search.MATE_SCORE - n, and being mated already is -Search.MATE_SCORE) and
+// pm (predicted move, in UCI notation). Output keeps the input order. At most a few lines
+// per worker are in flight, so memory stays flat however long the file is.
+public class EpdBatch {
+    private static final int LINES_PER_WORKER = 4;
+
+    private final int workers;
+    private final int hashMb;
+    private final SearchLimits limits;
+    private final ThreadLocal<Chessboard> engines;
+    private final AtomicLong nodes = new AtomicLong();
+    private long positions;
+    private long errors;
+    private long timeMs;
+
+    public EpdBatch(int workers, int hashMb, SearchLimits limits) {
+        this.workers = Math.max(1, workers);
+        this.hashMb = hashMb;
+        this.limits = limits;
+        this.engines = ThreadLocal.withInitial(() -> {
+            Chessboard engine = new Chessboard();
+            engine.setHashSize(this.hashMb);
+            return engine;
+        });
+    }
+
+    public void run(BufferedReader in, PrintStream out) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "epd-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String record = line;
+                pending.add(pool.submit(() -> analyse(record)));
+                if (pending.size() >= workers * LINES_PER_WORKER) {
+                    out.println(take(pending));
+                }
+            }
+            while (!pending.isEmpty()) {
+                out.println(take(pending));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        timeMs = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private String take(ArrayDeque<Future<String>> pending) {
+        try {
+            return pending.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("EPD batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("EPD analysis failed", e.getCause());
+        }
+    }
+
+    private String analyse(String line) {
+        Epd epd;
+        try {
+            epd = Epd.parse(line);
+            Chessboard engine = engines.get();
+            engine.setFen(epd.getFen());
+            engine.getSearchPool().getTranspositionTable().clear(); // Results must not depend on which worker ran the line
+            Move best = engine.findBestMove(engine.isWhiteToMove(), limits);
+            int score = engine.isWhiteToMove() ? engine.getLastScore() : -engine.getLastScore();
+            if (best == null && new MoveGenerator(engine).isKingInCheck(engine.isWhiteToMove())) {
+                score = -Search.MATE_SCORE; // Checkmated: nothing to search, but not the 0 of a stalemate
+            }
+            nodes.addAndGet(engine.getNodes());
+            epd.setOperation("acd", String.valueOf(engine.getCompletedDepth()))
+                    .setOperation("acn", String.valueOf(engine.getNodes()))
+                    .setOperation("ce", String.valueOf(score));
+            if (best != null) {
+                epd.setOperation("pm", Move.toUci(best.toCode()));
+            }
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage());
+        } catch (RuntimeException e) {
+            // Anything else may have left the board mid-search, so this worker starts the next line on a fresh one
+            engines.remove();
+            return error(e.toString());
+        }
+        synchronized (this) {
+            positions++;
+        }
+        return epd.toString();
+    }
+
+    // A line that can't be analysed is reported in the output as a comment, and the batch carries on
+    private synchronized String error(String message) {
+        errors++;
+        return "# " + message;
+    }
+
+    public synchronized long getPositions() {
+        return positions;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    // epd <file> [-depth N] [-movetime MS] [-threads N] [-hash MB]; results go to stdout, the summary to stderr
+    public static void run(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: epd <file> [-depth N] [-movetime MS] [-threads N] [-hash MB]");
+            return;
+        }
+        SearchLimits limits = SearchLimits.depth(Bench.DEFAULT_DEPTH);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMb = 16;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-depth" -> limits.setMaxDepth(Integer.parseInt(args[++i]));
+                case "-movetime" -> limits.setMaxDepth(SearchLimits.MAX_DEPTH).setMoveTime(Long.parseLong(args[++i]));
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-hash" -> hashMb = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        EpdBatch batch = new EpdBatch(threads, hashMb, limits);
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[0]))) {
+            batch.run(in, System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long elapsedMs = Math.max(1, batch.getTimeMs());
+        System.err.printf("%d positions (%d errors) in %d ms: %.1f positions/s, %d nodes/s%n", batch.getPositions(),
+                batch.getErrors(), batch.getTimeMs(), batch.getPositions() * 1000.0 / elapsedMs, batch.getNodes() * 1000 / elapsedMs);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Remembers recent static evaluations by position key, so a position reached again through a transposition or
+// a re-search is not evaluated twice. Direct-mapped with one long per entry: the top 48 bits of the key and the
+// score (White's point of view) in the low 16. Like PawnTable, each search thread has its own.
+public class EvalCache {
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private static final long KEY_MASK = ~0xFFFFL;
+
+    private long[] entries;
+    private int mask;
+    private long probes;
+    private long hits;
+
+    public EvalCache(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    public void resize(int sizeMb) {
+        long bytes = Math.max(1, sizeMb) * 1024L * 1024L;
+        int size = Integer.highestOneBit((int) Math.min(bytes / Long.BYTES, 1 << 26));
+        entries = new long[size];
+        mask = size - 1;
+    }
+
+    public int getSizeMb() {
+        return (int) ((long) entries.length * Long.BYTES / (1024 * 1024));
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    // The cached score for the key, or MISS
+    public int probe(long key) {
+        probes++;
+        long entry = entries[(int) key & mask];
+        if (entry != 0 && ((entry ^ key) & KEY_MASK) == 0) {
+            hits++;
+            return (short) entry;
+        }
+        return MISS;
+    }
+
+    public void store(long key, int score) {
+        if (score == (short) score) { // Anything wider can't be cached; real evaluations stay far inside
+            entries[(int) key & mask] = (key & KEY_MASK) | (score & 0xFFFF);
+        }
+    }
+
+    // Counted since the cache was created
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+}
@@ -2,6 +2,8 @@ package org.example;
 
 public class Evaluation {
     private final Chessboard chessboard;
+    private final PawnTable pawnTable; // Null to compute the pawn structure every time
+    private final EvalCache evalCache; // Null to evaluate every position from scratch
 
     // Piece values
     private static final int PAWN_VALUE = 100;
@@ -78,47 +80,200 @@ public class Evaluation {
             { 20, 30, 10,  0,  0, 10, 30, 20}
     };
 
-    // Add similar tables for other pieces if desired...
+    // The middlegame king hides behind its pawns; in the endgame it belongs in the centre
+    private static final int[][] KING_ENDGAME_TABLE = {
+            {-50,-40,-30,-20,-20,-30,-40,-50},
+            {-30,-20,-10,  0,  0,-10,-20,-30},
+            {-30,-10, 20, 30, 30, 20,-10,-30},
+            {-30,-10, 30, 40, 40, 30,-10,-30},
+            {-30,-10, 30, 40, 40, 30,-10,-30},
+            {-30,-10, 20, 30, 30, 20,-10,-30},
+            {-30,-30,  0,  0,  0,  0,-30,-30},
+            {-50,-30,-30,-30,-30,-30,-30,-50}
+    };
+
+    // Pawn structure, per pawn, as middlegame and endgame scores packed by PawnTable.pack. Packed scores add and
+    // subtract like plain ints, so the terms are summed without unpacking.
+    private static final int DOUBLED = PawnTable.pack(-10, -20);
+    private static final int ISOLATED = PawnTable.pack(-10, -15);
+    private static final int BACKWARD = PawnTable.pack(-8, -10);
+    // Passed pawns by rank from the pawn's own side, on top of the pawn table
+    private static final int[] PASSED = {
+            PawnTable.pack(0, 0), PawnTable.pack(5, 10), PawnTable.pack(10, 15), PawnTable.pack(15, 25),
+            PawnTable.pack(25, 45), PawnTable.pack(40, 75), PawnTable.pack(60, 120), PawnTable.pack(0, 0)
+    };
+
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[][] FRONT_SPAN = new long[2][64];   // Squares ahead of a pawn on its own file
+    private static final long[][] PASSED_SPAN = new long[2][64];  // Squares ahead on its own and adjacent files
+    private static final long[][] SUPPORT_SPAN = new long[2][64]; // Adjacent files on its rank and behind
+
+    private static final int[] PIECE_VALUES = {PAWN_VALUE, KNIGHT_VALUE, BISHOP_VALUE, ROOK_VALUE, QUEEN_VALUE, KING_VALUE};
+
+    // Game phase: 24 with all minor and major pieces on the board, 0 with only kings and pawns
+    public static final int TOTAL_PHASE = 24;
+    static final int[] PHASE_WEIGHT = {0, 1, 1, 2, 4, 0, 0, 1, 1, 2, 4, 0};
+
+    // Piece value plus table bonus for every coloured piece (see Piece.make) on every square,
+    // signed so that Black's pieces count negative. Chessboard adds these up as pieces move.
+    static final int[][] MIDDLEGAME_SCORES = new int[Piece.COUNT][64];
+    static final int[][] ENDGAME_SCORES = new int[Piece.COUNT][64];
+
+    static {
+        int[][][] middlegameTables = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE};
+        int[][][] endgameTables = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_ENDGAME_TABLE};
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            for (int square = 0; square < 64; square++) {
+                int row = Bitboards.row(square), col = Bitboards.col(square);
+                // Tables are drawn from White's side with the 8th rank on top, so mirror them for White
+                MIDDLEGAME_SCORES[Piece.make(Piece.WHITE, type)][square] = PIECE_VALUES[type] + middlegameTables[type][7 - row][col];
+                MIDDLEGAME_SCORES[Piece.make(Piece.BLACK, type)][square] = -(PIECE_VALUES[type] + middlegameTables[type][row][col]);
+                ENDGAME_SCORES[Piece.make(Piece.WHITE, type)][square] = PIECE_VALUES[type] + endgameTables[type][7 - row][col];
+                ENDGAME_SCORES[Piece.make(Piece.BLACK, type)][square] = -(PIECE_VALUES[type] + endgameTables[type][row][col]);
+            }
+        }
+
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? Bitboards.FILE_A << (col - 1) : 0) | (col < 7 ? Bitboards.FILE_A << (col + 1) : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int row = Bitboards.row(square), col = Bitboards.col(square);
+            long file = Bitboards.FILE_A << col;
+            long above = row == 7 ? 0 : -1L << (8 * (row + 1)); // Rows above this one
+            long below = (1L << (8 * row)) - 1;                  // Rows below this one
+            long rank = Bitboards.RANK_1 << (8 * row);
+            FRONT_SPAN[Piece.WHITE][square] = file & above;
+            FRONT_SPAN[Piece.BLACK][square] = file & below;
+            PASSED_SPAN[Piece.WHITE][square] = (file | ADJACENT_FILES[col]) & above;
+            PASSED_SPAN[Piece.BLACK][square] = (file | ADJACENT_FILES[col]) & below;
+            SUPPORT_SPAN[Piece.WHITE][square] = ADJACENT_FILES[col] & (below | rank);
+            SUPPORT_SPAN[Piece.BLACK][square] = ADJACENT_FILES[col] & (above | rank);
+        }
+    }
+
+    // Bonus on top of the normal evaluation for a position the bitbases prove won. It keeps every proven win
+    // above every unproven advantage while staying well below the mate scores.
+    public static final int KNOWN_WIN = 10000;
+
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type];
+    }
 
     public Evaluation(Chessboard chessboard) {
+        this(chessboard, null, null);
+    }
+
+    public Evaluation(Chessboard chessboard, PawnTable pawnTable, EvalCache evalCache) {
         this.chessboard = chessboard;
+        this.pawnTable = pawnTable;
+        this.evalCache = evalCache;
     }
 
     public int evaluateBoard(boolean isWhite) {
-        char[][] board = chessboard.getBoard();
-        int whiteScore = 0, blackScore = 0;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                int pieceValue = getPieceValue(board[row][col], row, col);
-                if (Character.isUpperCase(board[row][col])) {
-                    whiteScore += pieceValue;
-                } else if (Character.isLowerCase(board[row][col])) {
-                    blackScore += pieceValue;
-                }
+        int score;
+        if (evalCache == null) {
+            score = evaluate();
+        } else {
+            long key = chessboard.getZobristKey();
+            score = evalCache.probe(key);
+            if (score == EvalCache.MISS) {
+                score = evaluate();
+                evalCache.store(key, score);
             }
         }
 
         // Compute final scores based on perspective
-        if (isWhite) {
-            return whiteScore - blackScore;
-        } else {
-            return blackScore - whiteScore;
+        return isWhite ? score : -score;
+    }
+
+    // The board keeps running middlegame/endgame sums for material and tables; the pawn structure comes from the
+    // pawn table when it can. Both are blended by game phase. White's point of view.
+    private int evaluate() {
+        int pawns = pawnScore();
+        int middlegame = chessboard.getMiddlegameScore() + PawnTable.middlegame(pawns);
+        int endgame = chessboard.getEndgameScore() + PawnTable.endgame(pawns);
+        int phase = Math.min(chessboard.getPhase(), TOTAL_PHASE);
+        int score = (middlegame * phase + endgame * (TOTAL_PHASE - phase)) / TOTAL_PHASE;
+
+        Bitbases bitbases = chessboard.getBitbases();
+        if (bitbases != null && Long.bitCount(chessboard.getOccupied()) == 3) {
+            Bitbases.Result result = bitbases.probe(chessboard);
+            if (result == Bitbases.Result.DRAW) {
+                return 0;
+            }
+            if (result != Bitbases.Result.UNKNOWN) {
+                boolean whiteWins = (result == Bitbases.Result.WIN) == chessboard.isWhiteToMove();
+                score = knownWin(whiteWins ? Piece.WHITE : Piece.BLACK);
+            }
+        }
+        return score;
+    }
+
+    private int pawnScore() {
+        if (pawnTable == null) {
+            return evaluatePawns();
         }
+        long key = chessboard.getPawnKey();
+        int score = pawnTable.probe(key);
+        if (score == PawnTable.MISS) {
+            score = evaluatePawns();
+            pawnTable.store(key, score);
+        }
+        return score;
+    }
+
+    // Doubled, isolated, backward and passed pawns, White minus Black, packed as in PawnTable
+    int evaluatePawns() {
+        return evaluatePawns(Piece.WHITE) - evaluatePawns(Piece.BLACK);
     }
 
+    private int evaluatePawns(int colour) {
+        long ours = chessboard.getPieces(colour, Piece.PAWN);
+        long theirs = chessboard.getPieces(colour ^ 1, Piece.PAWN);
+        int score = 0;
+        for (long pawns = ours; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            boolean doubled = (FRONT_SPAN[colour][square] & ours) != 0; // Counted once, for the rear pawn
+            if (doubled) {
+                score += DOUBLED;
+            }
+            if ((ADJACENT_FILES[Bitboards.col(square)] & ours) == 0) {
+                score += ISOLATED;
+            } else if ((SUPPORT_SPAN[colour][square] & ours) == 0) {
+                // No pawn beside or behind can ever defend it, and an enemy pawn guards the square in front
+                int stop = colour == Piece.WHITE ? square + 8 : square - 8;
+                if ((Bitboards.PAWN_ATTACKS[colour][stop] & theirs) != 0) {
+                    score += BACKWARD;
+                }
+            }
+            if (!doubled && (PASSED_SPAN[colour][square] & theirs) == 0) {
+                score += PASSED[colour == Piece.WHITE ? Bitboards.row(square) : 7 - Bitboards.row(square)];
+            }
+        }
+        return score;
+    }
 
-    private int getPieceValue(char piece, int row, int col) {
-        int baseValue = switch (Character.toLowerCase(piece)) {
-            case 'p' -> PAWN_VALUE + PAWN_TABLE[row][col];
-            case 'n' -> KNIGHT_VALUE + KNIGHT_TABLE[row][col];
-            case 'b' -> BISHOP_VALUE + BISHOP_TABLE[row][col];
-            case 'r' -> ROOK_VALUE + ROOK_TABLE[row][col];
-            case 'q' -> QUEEN_VALUE + QUEEN_TABLE[row][col];
-            case 'k' -> KING_VALUE + KING_TABLE[row][col];
-            default -> 0;
-        };
+    // A proven win for the given side, plus terms that make progress towards mate or promotion: drive the
+    // defending king to the edge, bring the kings together, and advance the pawn and its king
+    private int knownWin(int winner) {
+        int loser = winner ^ 1;
+        int winnerKing = chessboard.getKingSquare(winner), loserKing = chessboard.getKingSquare(loser);
+        int edge = Math.max(3 - Bitboards.row(loserKing), Bitboards.row(loserKing) - 4)
+                + Math.max(3 - Bitboards.col(loserKing), Bitboards.col(loserKing) - 4);
+        int kingDistance = Math.abs(Bitboards.row(winnerKing) - Bitboards.row(loserKing))
+                + Math.abs(Bitboards.col(winnerKing) - Bitboards.col(loserKing));
+        int score = KNOWN_WIN + 20 * edge + 10 * (14 - kingDistance);
 
-        return Character.isUpperCase(piece) ? baseValue : -baseValue; // Assume negative values for black pieces
+        // The strong side's only piece besides the king; a pawn is worth more the closer it is to promoting
+        int square = Long.numberOfTrailingZeros(chessboard.getOccupancy(winner) & ~chessboard.getPieces(winner, Piece.KING));
+        int type = Piece.type(chessboard.pieceOn(square));
+        score += pieceValue(type);
+        if (type == Piece.PAWN) {
+            // The king usually has to lead the way before the pawn can safely advance
+            int pawnRow = winner == Piece.WHITE ? Bitboards.row(square) : 7 - Bitboards.row(square);
+            int kingRow = winner == Piece.WHITE ? Bitboards.row(winnerKing) : 7 - Bitboards.row(winnerKing);
+            score += 50 * pawnRow + 20 * kingRow;
+        }
+        return winner == Piece.WHITE ? score : -score;
     }
 }
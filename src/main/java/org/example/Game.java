@@ -1,5 +1,7 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 public class Game {
@@ -11,6 +13,32 @@ public class Game {
         this.board = new Chessboard(); // Ensure Chessboard is set up to handle initialization properly
         this.isWhiteTurn = true;
         this.scanner = new Scanner(System.in);
+
+        // Opening book, e.g. -Dchess.book=book.bin -Dchess.book.keys=polyglot-keys.bin
+        String bookFile = System.getProperty("chess.book");
+        if (bookFile != null) {
+            try {
+                Path keys = Path.of(System.getProperty("chess.book.keys", "polyglot-keys.bin"));
+                board.setBook(PolyglotBook.open(Path.of(bookFile), keys), PolyglotBook.Selection.WEIGHTED);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Opening book not loaded: " + e.getMessage());
+            }
+        }
+
+        // Endgame bitbases written by "bitbases <directory>", e.g. -Dchess.bitbases=bitbases
+        String bitbaseDirectory = System.getProperty("chess.bitbases");
+        if (bitbaseDirectory != null) {
+            try {
+                board.setBitbases(Bitbases.load(Path.of(bitbaseDirectory)));
+            } catch (IOException e) {
+                System.out.println("Bitbases not loaded: " + e.getMessage());
+            }
+        }
+
+        // Search statistics over JMX as SearchMetrics.OBJECT_NAME, with -Dchess.metrics=true (always on for UCI)
+        if (Boolean.getBoolean("chess.metrics")) {
+            SearchMetrics.register(board.getSearchPool());
+        }
     }
 
     public void start() {
@@ -1,9 +1,32 @@
 package org.example;
 
+import java.io.IOException;
+import java.util.Arrays;
 
 public class Main {
-    public static void main(String[] args) {// Starting position
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("perft")) {
+            Perft.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("uci")) {
+            Uci.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("epd")) {
+            EpdBatch.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("bench")) {
+            Bench.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("bitbases")) {
+            BitbaseGenerator.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Starting position
         Game game = new Game();
         game.start();
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,32 @@
 package org.example;
 
 public class Move {
+    // Move flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8; // Low two bits select the piece: knight, bishop, rook, queen
+    public static final int PROMOTION_CAPTURE = 12;
+
+    public static final int NONE = 0; // Packed code that is never a real move (a1 to a1)
+
     private int startRow, startCol;
     private int endRow, endCol;
+    private int flags;
 
     public Move(int startRow, int startCol, int endRow, int endCol) {
+        this(startRow, startCol, endRow, endCol, QUIET);
+    }
+
+    public Move(int startRow, int startCol, int endRow, int endCol, int flags) {
         this.startRow = startRow;
         this.startCol = startCol;
         this.endRow = endRow;
         this.endCol = endCol;
+        this.flags = flags;
     }
 
     @Override
@@ -32,5 +50,75 @@ public class Move {
         return startCol;
     }
 
+    public int getFrom() {
+        return startRow * 8 + startCol;
+    }
+
+    public int getTo() {
+        return endRow * 8 + endCol;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean isCapture() {
+        return (flags & CAPTURE) != 0;
+    }
+
+    public boolean isPromotion() {
+        return (flags & PROMOTION) != 0;
+    }
+
+    public int getPromotionType() {
+        return isPromotion() ? Piece.KNIGHT + (flags & 3) : Piece.NONE;
+    }
+
+    // 16-bit code: from square in bits 0-5, to square in bits 6-11, flags in bits 12-15
+    public int toCode() {
+        return encode(getFrom(), getTo(), flags);
+    }
+
+    public static Move fromCode(int move) {
+        return new Move(from(move) >>> 3, from(move) & 7, to(move) >>> 3, to(move) & 7, flags(move));
+    }
+
+    // Packed moves are plain ints so the search can keep them in preallocated arrays
+    public static int encode(int from, int to, int flags) {
+        return from | to << 6 | flags << 12;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return move >>> 12;
+    }
 
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE << 12) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & PROMOTION << 12) != 0;
+    }
+
+    public static int promotionType(int move) {
+        return isPromotion(move) ? Piece.KNIGHT + ((move >>> 12) & 3) : Piece.NONE;
+    }
+
+    // Long algebraic notation as used by UCI, e.g. "e2e4" or "e7e8q"
+    public static String toUci(int move) {
+        String uci = squareName(from(move)) + squareName(to(move));
+        return isPromotion(move) ? uci + Piece.toChar(Piece.make(Piece.BLACK, promotionType(move))) : uci;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.col(square)) + (char) ('1' + Bitboards.row(square));
+    }
 }
@@ -4,183 +4,399 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class MoveGenerator {
+    public static final int MAX_MOVES = 256; // More than any legal position can produce
+
     private final Chessboard chessboard;
+    private final int[] swapList = new int[32]; // Gains along a capture sequence, one per capture
 
     public MoveGenerator(Chessboard chessboard) {
         this.chessboard = chessboard;
     }
 
     public List<Move> generateMoves(boolean isWhite) {
-        List<Move> moves = new ArrayList<>();
-        char[][] board = chessboard.getBoard();
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                char piece = board[row][col];
-                if ((Character.isUpperCase(piece) && isWhite) || (Character.isLowerCase(piece) && !isWhite)) {
-                    switch (Character.toLowerCase(piece)) {
-                        case 'p':
-                            generatePawnMoves(row, col, moves, isWhite);
-                            break;
-                        case 'r':
-                            generateRookMoves(row, col, moves);
-                            break;
-                        case 'n':
-                            generateKnightMoves(row, col, moves);
-                            break;
-                        case 'b':
-                            generateBishopMoves(row, col, moves);
-                            break;
-                        case 'q':
-                            generateQueenMoves(row, col, moves);
-                            break;
-                        case 'k':
-                            generateKingMoves(row, col, moves);
-                            break;
-                    }
-                }
-            }
+        int[] buffer = new int[MAX_MOVES];
+        int count = generateMoves(isWhite, buffer);
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(Move.fromCode(buffer[i]));
         }
         return moves;
     }
 
+    // Writes packed pseudo-legal moves into the caller's buffer and returns how many there are
+    public int generateMoves(boolean isWhite, int[] moves) {
+        return generate(isWhite, moves, false);
+    }
 
-    private void generatePawnMoves(int row, int col, List<Move> moves, boolean isWhite) {
-        int forward = isWhite ? 1 : -1;
-        int startRow = isWhite ? 1 : 6;
-        int newRow = row + forward;
+    // Only the legal moves for the side to move. Nothing is made and unmade: see generateLegal
+    public int generateLegalMoves(int[] moves) {
+        return generateLegal(moves, false);
+    }
 
-        // Straight move
-        if (newRow >= 0 && newRow < 8 && chessboard.getBoard()[newRow][col] == ' ') {
-            addMoveIfValid(row, col, newRow, col, moves);
-            // Double move from start position
-            if (row == startRow && chessboard.getBoard()[newRow + forward][col] == ' ') {
-                addMoveIfValid(row, col, newRow + forward, col, moves);
-            }
+    // Legal captures and promotions for the side to move, for the quiescence search
+    public int generateLegalCaptures(int[] moves) {
+        return generateLegal(moves, true);
+    }
+
+    // Captures and promotions only, for the quiescence search
+    public int generateCaptures(boolean isWhite, int[] moves) {
+        return generate(isWhite, moves, true);
+    }
+
+    private int generate(boolean isWhite, int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int us = isWhite ? Piece.WHITE : Piece.BLACK;
+        long own = chessboard.getOccupancy(us);
+        long enemy = chessboard.getOccupancy(us ^ 1);
+        long occupied = own | enemy;
+        long targets = capturesOnly ? enemy : ~own;
+
+        count = generatePawnMoves(us, enemy, occupied, capturesOnly, moves, count);
+
+        long knights = chessboard.getPieces(us, Piece.KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(from, Bitboards.KNIGHT_ATTACKS[from] & targets, enemy, moves, count);
         }
-        // Captures
-        int[] captureCols = {col - 1, col + 1};
-        for (int captureCol : captureCols) {
-            if (newRow >= 0 && newRow < 8 && captureCol >= 0 && captureCol < 8
-                    && chessboard.getBoard()[newRow][captureCol] != ' '
-                    && Character.isUpperCase(chessboard.getBoard()[row][col]) != Character.isUpperCase(chessboard.getBoard()[newRow][captureCol])) {
-                addMoveIfValid(row, col, newRow, captureCol, moves);
+        long bishops = chessboard.getPieces(us, Piece.BISHOP) | chessboard.getPieces(us, Piece.QUEEN);
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            count = addMoves(from, Bitboards.bishopAttacks(from, occupied) & targets, enemy, moves, count);
+        }
+        long rooks = chessboard.getPieces(us, Piece.ROOK) | chessboard.getPieces(us, Piece.QUEEN);
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            count = addMoves(from, Bitboards.rookAttacks(from, occupied) & targets, enemy, moves, count);
+        }
+        long king = chessboard.getPieces(us, Piece.KING);
+        if (king != 0) {
+            int from = Long.numberOfTrailingZeros(king);
+            count = addMoves(from, Bitboards.KING_ATTACKS[from] & targets, enemy, moves, count);
+            if (!capturesOnly && isWhite == chessboard.isWhiteToMove()) {
+                count = generateCastlingMoves(us, from, occupied, moves, count);
             }
         }
+        return count;
     }
 
-    private void generateBishopMoves(int row, int col, List<Move> moves) {
-        int[] directions = {-1, 1};
-        for (int dRow : directions) {
-            for (int dCol : directions) {
-                int i = row + dRow, j = col + dCol;
-                while (i >= 0 && i < 8 && j >= 0 && j < 8) {
-                    if (!addMoveIfValid(row, col, i, j, moves)) break;
-                    i += dRow;
-                    j += dCol;
-                }
+
+    // Finds the checkers and the pinned pieces once, then gives every piece only the squares that keep its king
+    // safe: in check, capturing the checker or blocking its ray; when pinned, staying on the line to the king.
+    // King moves are tested against the board without the king, so it can't step back along a checking ray.
+    // En passant can uncover a rank through two pawns at once, so it alone is tested by removing them.
+    private int generateLegal(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int us = chessboard.isWhiteToMove() ? Piece.WHITE : Piece.BLACK;
+        int them = us ^ 1;
+        long own = chessboard.getOccupancy(us);
+        long enemy = chessboard.getOccupancy(them);
+        long occupied = own | enemy;
+        int king = chessboard.getKingSquare(us);
+        long checkers = attackersTo(king, occupied) & enemy;
+
+        long kingTargets = Bitboards.KING_ATTACKS[king] & (capturesOnly ? enemy : ~own);
+        long withoutKing = occupied ^ 1L << king;
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if ((attackersTo(to, withoutKing) & enemy) == 0) {
+                moves[count++] = Move.encode(king, to, (enemy & 1L << to) != 0 ? Move.CAPTURE : Move.QUIET);
             }
         }
+        if (Long.bitCount(checkers) > 1) {
+            return count; // Double check: only the king can move
+        }
+
+        // Squares that resolve a single check; anywhere when not in check
+        long evasions = checkers == 0 ? ~0L : checkers | Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+        long targets = (capturesOnly ? enemy : ~own) & evasions;
+
+        // A piece is pinned when it is the only thing between the king and an enemy slider on the same line
+        long enemyQueens = chessboard.getPieces(them, Piece.QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, enemy) & (chessboard.getPieces(them, Piece.ROOK) | enemyQueens))
+                | (Bitboards.bishopAttacks(king, enemy) & (chessboard.getPieces(them, Piece.BISHOP) | enemyQueens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[king][sniper] & occupied;
+            if ((blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+
+        count = generateLegalPawnMoves(us, king, enemy, occupied, evasions, pinned, capturesOnly, moves, count);
+
+        long knights = chessboard.getPieces(us, Piece.KNIGHT) & ~pinned; // A pinned knight can never move
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(from, Bitboards.KNIGHT_ATTACKS[from] & targets, enemy, moves, count);
+        }
+        long bishops = chessboard.getPieces(us, Piece.BISHOP) | chessboard.getPieces(us, Piece.QUEEN);
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            long pinMask = (pinned & 1L << from) != 0 ? Bitboards.LINE[king][from] : ~0L;
+            count = addMoves(from, Bitboards.bishopAttacks(from, occupied) & targets & pinMask, enemy, moves, count);
+        }
+        long rooks = chessboard.getPieces(us, Piece.ROOK) | chessboard.getPieces(us, Piece.QUEEN);
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            long pinMask = (pinned & 1L << from) != 0 ? Bitboards.LINE[king][from] : ~0L;
+            count = addMoves(from, Bitboards.rookAttacks(from, occupied) & targets & pinMask, enemy, moves, count);
+        }
+
+        if (!capturesOnly && checkers == 0) {
+            count = generateCastlingMoves(us, king, occupied, moves, count);
+        }
+        return count;
     }
 
-    private void generateRookMoves(int row, int col, List<Move> moves) {
-        // Horizontal and vertical moves
-        int[] directions = {-1, 1};
-        for (int direction : directions) {
-            for (int i = row + direction; i >= 0 && i < 8; i += direction) { // Vertical moves
-                if (!addMoveIfValid(row, col, i, col, moves)) break;
+    private int generateLegalPawnMoves(int us, int king, long enemy, long occupied, long evasions, long pinned,
+                                       boolean capturesOnly, int[] moves, int count) {
+        long pawns = chessboard.getPieces(us, Piece.PAWN);
+        int forward = us == Piece.WHITE ? 8 : -8;
+        long promotionRank = us == Piece.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long startRank = us == Piece.WHITE ? Bitboards.RANK_2 : Bitboards.RANK_7;
+
+        long remaining = pawns;
+        while (remaining != 0) {
+            int from = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            long allowed = (pinned & 1L << from) != 0 ? evasions & Bitboards.LINE[king][from] : evasions;
+
+            int to = from + forward;
+            if ((occupied & 1L << to) == 0) {
+                boolean promotion = (1L << to & promotionRank) != 0;
+                if ((allowed & 1L << to) != 0 && (promotion || !capturesOnly)) {
+                    count = addPawnMove(from, to, promotion, Move.QUIET, moves, count);
+                }
+                int doubleTo = to + forward;
+                if (!capturesOnly && (1L << from & startRank) != 0 && (occupied & 1L << doubleTo) == 0
+                        && (allowed & 1L << doubleTo) != 0) {
+                    moves[count++] = Move.encode(from, doubleTo, Move.DOUBLE_PAWN_PUSH);
+                }
             }
-            for (int j = col + direction; j >= 0 && j < 8; j += direction) { // Horizontal moves
-                if (!addMoveIfValid(row, col, row, j, moves)) break;
+
+            long captures = Bitboards.PAWN_ATTACKS[us][from] & enemy & allowed;
+            while (captures != 0) {
+                to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                count = addPawnMove(from, to, (1L << to & promotionRank) != 0, Move.CAPTURE, moves, count);
             }
         }
+
+        int enPassantSquare = chessboard.getEnPassantSquare();
+        if (enPassantSquare != -1) {
+            long capturedPawn = 1L << (enPassantSquare - forward);
+            long capturers = Bitboards.PAWN_ATTACKS[us ^ 1][enPassantSquare] & pawns;
+            while (capturers != 0) {
+                int from = Long.numberOfTrailingZeros(capturers);
+                capturers &= capturers - 1;
+                long after = occupied ^ 1L << from ^ capturedPawn | 1L << enPassantSquare;
+                if ((attackersTo(king, after) & enemy & ~capturedPawn) == 0) {
+                    moves[count++] = Move.encode(from, enPassantSquare, Move.EN_PASSANT);
+                }
+            }
+        }
+        return count;
     }
 
-    private void generateQueenMoves(int row, int col, List<Move> moves) {
-        generateRookMoves(row, col, moves);
-        generateBishopMoves(row, col, moves);
+    private int generatePawnMoves(int us, long enemy, long occupied, boolean capturesOnly, int[] moves, int count) {
+        long pawns = chessboard.getPieces(us, Piece.PAWN);
+        long empty = ~occupied;
+        int forward = us == Piece.WHITE ? 8 : -8;
+        long promotionRank = us == Piece.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+
+        // Straight moves, and double moves from the start position
+        long singlePushes = us == Piece.WHITE ? (pawns << 8) & empty : (pawns >>> 8) & empty;
+        if (capturesOnly) {
+            singlePushes &= promotionRank;
+        }
+        long doublePushes = capturesOnly ? 0L : us == Piece.WHITE
+                ? ((singlePushes & (Bitboards.RANK_1 << 16)) << 8) & empty
+                : ((singlePushes & (Bitboards.RANK_1 << 40)) >>> 8) & empty;
+        while (singlePushes != 0) {
+            int to = Long.numberOfTrailingZeros(singlePushes);
+            singlePushes &= singlePushes - 1;
+            count = addPawnMove(to - forward, to, (1L << to & promotionRank) != 0, Move.QUIET, moves, count);
+        }
+        while (doublePushes != 0) {
+            int to = Long.numberOfTrailingZeros(doublePushes);
+            doublePushes &= doublePushes - 1;
+            moves[count++] = Move.encode(to - 2 * forward, to, Move.DOUBLE_PAWN_PUSH);
+        }
+
+        // Captures
+        long attackers = pawns;
+        while (attackers != 0) {
+            int from = Long.numberOfTrailingZeros(attackers);
+            attackers &= attackers - 1;
+            long captures = Bitboards.PAWN_ATTACKS[us][from] & enemy;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                count = addPawnMove(from, to, (1L << to & promotionRank) != 0, Move.CAPTURE, moves, count);
+            }
+        }
+
+        int enPassantSquare = chessboard.getEnPassantSquare();
+        if (enPassantSquare != -1 && (us == Piece.WHITE) == chessboard.isWhiteToMove()) {
+            long capturers = Bitboards.PAWN_ATTACKS[us ^ 1][enPassantSquare] & pawns;
+            while (capturers != 0) {
+                int from = Long.numberOfTrailingZeros(capturers);
+                capturers &= capturers - 1;
+                moves[count++] = Move.encode(from, enPassantSquare, Move.EN_PASSANT);
+            }
+        }
+        return count;
     }
 
-    private void generateKingMoves(int row, int col, List<Move> moves) {
-        int[] directions = {-1, 0, 1};
-        for (int dRow : directions) {
-            for (int dCol : directions) {
-                if (dRow != 0 || dCol != 0) {
-                    int newRow = row + dRow;
-                    int newCol = col + dCol;
-                    addMoveIfValid(row, col, newRow, newCol, moves);
-                }
+    private static int addPawnMove(int from, int to, boolean promotion, int flags, int[] moves, int count) {
+        if (promotion) {
+            for (int type = Piece.QUEEN; type >= Piece.KNIGHT; type--) {
+                moves[count++] = Move.encode(from, to, flags | Move.PROMOTION | (type - Piece.KNIGHT));
             }
+        } else {
+            moves[count++] = Move.encode(from, to, flags);
         }
+        return count;
     }
 
-    private void generateKnightMoves(int row, int col, List<Move> moves) {
-        int[][] knightMoves = {
-                {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
-                {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
-        };
-        for (int[] move : knightMoves) {
-            int newRow = row + move[0];
-            int newCol = col + move[1];
-            addMoveIfValid(row, col, newRow, newCol, moves);
+    private int generateCastlingMoves(int us, int kingSquare, long occupied, int[] moves, int count) {
+        int rights = chessboard.getCastlingRights();
+        int kingside = us == Piece.WHITE ? Chessboard.WHITE_KINGSIDE : Chessboard.BLACK_KINGSIDE;
+        int queenside = us == Piece.WHITE ? Chessboard.WHITE_QUEENSIDE : Chessboard.BLACK_QUEENSIDE;
+        if ((rights & (kingside | queenside)) == 0) return count;
+
+        // The king may not castle out of, through or into check
+        int them = us ^ 1;
+        if (isSquareAttacked(kingSquare, them)) return count;
+        long rooks = chessboard.getPieces(us, Piece.ROOK);
+        if ((rights & kingside) != 0
+                && (rooks & 1L << (kingSquare + 3)) != 0
+                && (occupied & (3L << (kingSquare + 1))) == 0
+                && !isSquareAttacked(kingSquare + 1, them)
+                && !isSquareAttacked(kingSquare + 2, them)) {
+            moves[count++] = Move.encode(kingSquare, kingSquare + 2, Move.KING_CASTLE);
         }
+        if ((rights & queenside) != 0
+                && (rooks & 1L << (kingSquare - 4)) != 0
+                && (occupied & (7L << (kingSquare - 3))) == 0
+                && !isSquareAttacked(kingSquare - 1, them)
+                && !isSquareAttacked(kingSquare - 2, them)) {
+            moves[count++] = Move.encode(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE);
+        }
+        return count;
     }
 
-    private boolean addMoveIfValid(int startRow, int startCol, int endRow, int endCol, List<Move> moves) {
-        if (endRow >= 0 && endRow < 8 && endCol >= 0 && endCol < 8) {
-            if (chessboard.getBoard()[endRow][endCol] == ' ' || Character.isUpperCase(chessboard.getBoard()[startRow][startCol]) != Character.isUpperCase(chessboard.getBoard()[endRow][endCol])) {
-                moves.add(new Move(startRow, startCol, endRow, endCol));
-                return chessboard.getBoard()[endRow][endCol] == ' '; // Continue if empty
-            }
+    private static int addMoves(int from, long targets, long enemy, int[] moves, int count) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = Move.encode(from, to, (enemy & 1L << to) != 0 ? Move.CAPTURE : Move.QUIET);
         }
-        return false; // Blocked or out of bounds
+        return count;
     }
 
-    public boolean isKingInCheck(boolean isWhite) {
-        // Locate the king
-        int kingRow = -1, kingCol = -1;
-        char king = isWhite ? 'K' : 'k';
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
+    // Looks outward from the square: a piece of type X attacks it exactly when an X standing on the square
+    // would attack that piece, so one table lookup or ray per piece type is enough
+    public boolean isSquareAttacked(int square, int byColour) {
+        long occupied = chessboard.getOccupied();
+        long queens = chessboard.getPieces(byColour, Piece.QUEEN);
+        return (Bitboards.PAWN_ATTACKS[byColour ^ 1][square] & chessboard.getPieces(byColour, Piece.PAWN)) != 0
+                || (Bitboards.KNIGHT_ATTACKS[square] & chessboard.getPieces(byColour, Piece.KNIGHT)) != 0
+                || (Bitboards.KING_ATTACKS[square] & chessboard.getPieces(byColour, Piece.KING)) != 0
+                || (Bitboards.bishopAttacks(square, occupied) & (chessboard.getPieces(byColour, Piece.BISHOP) | queens)) != 0
+                || (Bitboards.rookAttacks(square, occupied) & (chessboard.getPieces(byColour, Piece.ROOK) | queens)) != 0;
+    }
 
-                if (chessboard.getBoard()[row][col] == king) {
+    // Every piece of either colour attacking the square, with sliders seeing through the squares missing from occupied
+    public long attackersTo(int square, long occupied) {
+        long queens = chessboard.getPieces(Piece.WHITE, Piece.QUEEN) | chessboard.getPieces(Piece.BLACK, Piece.QUEEN);
+        long bishops = chessboard.getPieces(Piece.WHITE, Piece.BISHOP) | chessboard.getPieces(Piece.BLACK, Piece.BISHOP) | queens;
+        long rooks = chessboard.getPieces(Piece.WHITE, Piece.ROOK) | chessboard.getPieces(Piece.BLACK, Piece.ROOK) | queens;
+        return (Bitboards.PAWN_ATTACKS[Piece.BLACK][square] & chessboard.getPieces(Piece.WHITE, Piece.PAWN))
+                | (Bitboards.PAWN_ATTACKS[Piece.WHITE][square] & chessboard.getPieces(Piece.BLACK, Piece.PAWN))
+                | (Bitboards.KNIGHT_ATTACKS[square] & (chessboard.getPieces(Piece.WHITE, Piece.KNIGHT) | chessboard.getPieces(Piece.BLACK, Piece.KNIGHT)))
+                | (Bitboards.KING_ATTACKS[square] & (chessboard.getPieces(Piece.WHITE, Piece.KING) | chessboard.getPieces(Piece.BLACK, Piece.KING)))
+                | (Bitboards.bishopAttacks(square, occupied) & bishops)
+                | (Bitboards.rookAttacks(square, occupied) & rooks);
+    }
 
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
-            if (kingRow != -1) break; // Break outer loop if king is found
+    // Static exchange evaluation: the material the moving side wins (negative if it loses) when both sides keep
+    // recapturing on the target square with their least valuable attacker, and either may stop when that pays
+    public int staticExchange(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = Piece.colour(chessboard.pieceOn(from));
+        long occupied = chessboard.getOccupied() ^ 1L << from;
+
+        int captured;
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            captured = Evaluation.pieceValue(Piece.PAWN);
+            occupied ^= 1L << (us == Piece.WHITE ? to - 8 : to + 8);
+        } else {
+            captured = chessboard.pieceOn(to) == Piece.NONE ? 0 : Evaluation.pieceValue(Piece.type(chessboard.pieceOn(to)));
+        }
+        int onSquare = Evaluation.pieceValue(Piece.type(chessboard.pieceOn(from))); // Value of the piece that can be taken next
+        swapList[0] = captured;
+        if (Move.isPromotion(move)) {
+            onSquare = Evaluation.pieceValue(Move.promotionType(move));
+            swapList[0] += onSquare - Evaluation.pieceValue(Piece.PAWN);
         }
 
-        // Check for attacks
-        List<Move> enemyMoves = generateMoves(!isWhite);
-        for (Move move : enemyMoves) {
-            if (move.getEndRow() == kingRow && move.getEndCol() == kingCol) {
-                return true; // The king is in check
-            }
+        long attackers = attackersTo(to, occupied) & occupied;
+        int side = us ^ 1;
+        int depth = 0;
+        while (true) {
+            long sideAttackers = attackers & chessboard.getOccupancy(side);
+            if (sideAttackers == 0) break;
+            int type = Piece.PAWN;
+            while ((sideAttackers & chessboard.getPieces(side, type)) == 0) type++;
+            // The king may only recapture when nothing defends the square any more
+            if (type == Piece.KING && (attackers & chessboard.getOccupancy(side ^ 1)) != 0) break;
+
+            depth++;
+            swapList[depth] = onSquare - swapList[depth - 1];
+            onSquare = Evaluation.pieceValue(type);
+            occupied ^= Long.lowestOneBit(sideAttackers & chessboard.getPieces(side, type));
+            attackers = attackersTo(to, occupied) & occupied; // Uncovers sliders behind the piece that just moved
+            side ^= 1;
         }
+        // Walk back: each side either makes its capture or stops before it, whichever is better for it
+        while (depth > 0) {
+            swapList[depth - 1] = -Math.max(-swapList[depth - 1], swapList[depth]);
+            depth--;
+        }
+        return swapList[0];
+    }
 
-        return false; // No enemy can attack the king's position
+    public boolean isKingInCheck(boolean isWhite) {
+        int us = isWhite ? Piece.WHITE : Piece.BLACK;
+        return isSquareAttacked(chessboard.getKingSquare(us), us ^ 1);
     }
 
 
     public boolean isMoveValid(Move move) {
+        return isMoveValid(move.toCode());
+    }
+
+    public boolean isMoveValid(int move) {
         // Simulate the move
-        char[][] board = chessboard.getBoard();
-        char piece = board[move.getStartRow()][move.getStartCol()];
-        char capturedPiece = board[move.getEndRow()][move.getEndCol()];
-        // Perform the move temporarily
-        board[move.getEndRow()][move.getEndCol()] = piece;
-        board[move.getStartRow()][move.getStartCol()] = ' ';
+        boolean isWhite = Piece.colour(chessboard.pieceOn(Move.from(move))) == Piece.WHITE;
+        chessboard.makeMove(move);
 
-        boolean isValid = !isKingInCheck(Character.isUpperCase(piece)); // Check if this move leaves the king in check
+        boolean isValid = !isKingInCheck(isWhite); // Check if this move leaves the king in check
 
         // Undo the move
-        board[move.getStartRow()][move.getStartCol()] = piece;
-        board[move.getEndRow()][move.getEndCol()] = capturedPiece;
+        chessboard.undoMove(move);
 
         return isValid;
     }
-
-    // Implement all move generation methods here, similar to previous example
 }
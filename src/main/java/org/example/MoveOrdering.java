@@ -0,0 +1,109 @@
+package org.example;
+
+// Per-search move ordering state (a fresh Search starts with empty tables): killer moves per ply and a butterfly history table
+public class MoveOrdering {
+    private static final int HASH_MOVE_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 200_000;
+    private static final int FIRST_KILLER_SCORE = 150_000;
+    private static final int SECOND_KILLER_SCORE = 140_000;
+    private static final int HISTORY_MAX = 100_000; // Kept below the killer scores
+    private static final int LOSING_CAPTURE_SCORE = -200_000; // Captures that lose material go after the quiet moves
+
+    // Victim values for MVV-LVA, indexed by piece type
+    private static final int[] VICTIM_VALUE = {100, 320, 330, 500, 900, 0};
+
+    private final MoveGenerator moveGenerator;
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64]; // [colour][from][to]
+
+    public MoveOrdering(MoveGenerator moveGenerator) {
+        this.moveGenerator = moveGenerator;
+    }
+
+    // Fills scores[i] for moves[i]; higher scores are searched first
+    public void scoreMoves(Chessboard board, int[] moves, int[] scores, int count, int hashMove, int ply) {
+        int colour = board.isWhiteToMove() ? Piece.WHITE : Piece.BLACK;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                int base = isLosingCapture(board, move) ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE;
+                scores[i] = base + captureScore(board, move);
+            } else if (move == killers[ply][0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = history[colour][Move.from(move)][Move.to(move)];
+            }
+        }
+    }
+
+    // Taking a piece worth at least the capturer can't lose material, so only the rest need a full exchange evaluation
+    public boolean isLosingCapture(Chessboard board, int move) {
+        if (Move.isPromotion(move) || Move.flags(move) == Move.EN_PASSANT) {
+            return false;
+        }
+        int attacker = Piece.type(board.pieceOn(Move.from(move)));
+        int victim = Piece.type(board.pieceOn(Move.to(move)));
+        return VICTIM_VALUE[victim] < VICTIM_VALUE[attacker] && moveGenerator.staticExchange(move) < 0;
+    }
+
+    // Most valuable victim first, least valuable attacker breaking ties
+    private static int captureScore(Chessboard board, int move) {
+        int attacker = Piece.type(board.pieceOn(Move.from(move)));
+        int victim = Move.flags(move) == Move.EN_PASSANT ? Piece.PAWN : board.pieceOn(Move.to(move));
+        int score = victim == Piece.NONE ? 0 : VICTIM_VALUE[Piece.type(victim)] * 8 - attacker;
+        if (Move.isPromotion(move)) {
+            score += VICTIM_VALUE[Move.promotionType(move)];
+        }
+        return score;
+    }
+
+    public boolean isKiller(int move, int ply) {
+        return move == killers[ply][0] || move == killers[ply][1];
+    }
+
+    public int getHistory(int move, boolean isWhite) {
+        return history[isWhite ? Piece.WHITE : Piece.BLACK][Move.from(move)][Move.to(move)];
+    }
+
+    // Selection sort step: swaps the best remaining move into position index and returns it
+    public static int pickNext(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+        return move;
+    }
+
+    // A quiet move caused a cutoff: remember it as a killer and credit its history
+    public void recordCutoff(int move, int ply, int depth, boolean isWhite) {
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[][] colourHistory = history[isWhite ? Piece.WHITE : Piece.BLACK];
+        colourHistory[Move.from(move)][Move.to(move)] += depth * depth;
+        if (colourHistory[Move.from(move)][Move.to(move)] > HISTORY_MAX) {
+            // Age the whole table so recent cutoffs weigh more than old ones
+            for (int[] fromHistory : colourHistory) {
+                for (int to = 0; to < 64; to++) {
+                    fromHistory[to] /= 2;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Caches the pawn-structure score by pawn key. Pawns rarely move compared to other pieces, so most positions a
+// search visits share their pawns with one already evaluated. Each search thread has its own table, so there is
+// no locking. Entries are never stale: the score depends only on the pawns, and those are what the key covers.
+public class PawnTable {
+    public static final int MISS = Integer.MIN_VALUE; // Never a packed score: those stay far from the int range
+
+    private static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final boolean[] used; // The key of a position without pawns is 0, so a zero key doesn't mean empty
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    public PawnTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    public PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new int[size];
+        used = new boolean[size];
+        mask = size - 1;
+    }
+
+    // Middlegame and endgame scores in one int, endgame in the low 16 bits
+    public static int pack(int middlegame, int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    public static int middlegame(int packed) {
+        return (packed + 0x8000) >> 16;
+    }
+
+    public static int endgame(int packed) {
+        return (short) packed;
+    }
+
+    // The packed score stored for the key, or MISS
+    public int probe(long key) {
+        probes++;
+        int index = (int) key & mask;
+        if (used[index] && keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        return MISS;
+    }
+
+    public void store(long key, int packedScore) {
+        int index = (int) key & mask;
+        keys[index] = key;
+        scores[index] = packedScore;
+        used[index] = true;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+    }
+
+    // Counted since the table was created
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+}
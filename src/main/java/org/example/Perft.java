@@ -0,0 +1,239 @@
+package org.example;
+
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Counts the leaves of the legal move tree to a fixed depth. Totals for the standard test positions are
+// published, so a mismatch points at a move generator bug, and the time taken measures its speed.
+public class Perft {
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int SPLIT_DEPTH = 4; // Subtrees shallower than this are counted on the current thread
+
+    private final int threads;
+    private final PerftTable table; // Null when hashing is off
+    private long lastNodes;
+    private long lastTimeMs;
+
+    public Perft(int threads, int hashMb) {
+        this.threads = Math.max(1, threads);
+        this.table = hashMb > 0 ? new PerftTable(hashMb) : null;
+    }
+
+    public long perft(Chessboard position, int depth) {
+        long start = System.nanoTime();
+        long nodes = count(new Chessboard(position), depth);
+        finish(nodes, start);
+        return nodes;
+    }
+
+    // Prints the leaf count below each legal root move, the format other engines use so totals can be compared move by move
+    public long divide(Chessboard position, int depth, PrintStream out) {
+        long start = System.nanoTime();
+        Chessboard board = new Chessboard(position);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator(board).generateLegalMoves(moves);
+        long[] moveNodes = new long[count];
+        if (threads > 1 && depth > 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                PerftTask[] tasks = new PerftTask[count];
+                for (int i = 0; i < count; i++) {
+                    Chessboard child = new Chessboard(board);
+                    child.makeMove(moves[i]);
+                    tasks[i] = new PerftTask(child, depth - 1);
+                    pool.execute(tasks[i]);
+                }
+                for (int i = 0; i < count; i++) {
+                    moveNodes[i] = tasks[i].join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            Counter counter = new Counter(board);
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                moveNodes[i] = depth <= 1 ? 1 : counter.count(depth - 1);
+                board.undoMove(moves[i]);
+            }
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            out.println(Move.toUci(moves[i]) + ": " + moveNodes[i]);
+            nodes += moveNodes[i];
+        }
+        finish(nodes, start);
+        out.println();
+        out.println("Nodes searched: " + nodes);
+        out.println("Time (ms): " + lastTimeMs);
+        out.println("Nodes/second: " + getNodesPerSecond());
+        return nodes;
+    }
+
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    public long getNodesPerSecond() {
+        return lastNodes * 1000 / Math.max(1, lastTimeMs);
+    }
+
+    private void finish(long nodes, long startNanos) {
+        lastNodes = nodes;
+        lastTimeMs = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private long count(Chessboard board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (threads > 1 && depth >= SPLIT_DEPTH) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                return pool.invoke(new PerftTask(board, depth));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return new Counter(board).count(depth);
+    }
+
+    // Single-threaded counting with one move buffer per depth
+    private class Counter {
+        private final Chessboard board;
+        private final MoveGenerator moveGenerator;
+        private final int[][] moveBuffers = new int[SearchLimits.MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+
+        Counter(Chessboard board) {
+            this.board = board;
+            this.moveGenerator = new MoveGenerator(board);
+        }
+
+        long count(int depth) {
+            long key = board.getZobristKey();
+            if (table != null && depth > 1) {
+                long nodes = table.probe(key, depth);
+                if (nodes >= 0) return nodes;
+            }
+            int[] moves = moveBuffers[depth];
+            int count = moveGenerator.generateLegalMoves(moves);
+            if (depth == 1) {
+                return count; // Bulk counting: the legal moves are the leaves
+            }
+            long nodes = 0;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                nodes += count(depth - 1);
+                board.undoMove(moves[i]);
+            }
+            if (table != null) {
+                table.store(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    // Splits near the root: every legal move becomes a subtask with its own board copy until SPLIT_DEPTH
+    private class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Chessboard board; // Tasks are never serialized
+        private final int depth;
+
+        PerftTask(Chessboard board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH) {
+                return new Counter(board).count(depth);
+            }
+            long key = board.getZobristKey();
+            if (table != null) {
+                long nodes = table.probe(key, depth);
+                if (nodes >= 0) return nodes;
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = new MoveGenerator(board).generateLegalMoves(moves);
+            PerftTask[] tasks = new PerftTask[count];
+            for (int i = 0; i < count; i++) {
+                Chessboard child = new Chessboard(board);
+                child.makeMove(moves[i]);
+                tasks[i] = new PerftTask(child, depth - 1);
+            }
+            invokeAll(tasks);
+            long nodes = 0;
+            for (PerftTask task : tasks) {
+                nodes += task.join();
+            }
+            if (table != null) {
+                table.store(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    // Direct-mapped subtree counts. Entries are (key ^ data, data) pairs as in TranspositionTable, so threads
+    // can share the table without locks; the depth sits in the top byte of data since counts differ per depth.
+    private static class PerftTable {
+        private final long[] entries;
+        private final int mask;
+
+        PerftTable(int sizeMb) {
+            int slots = Integer.highestOneBit((int) Math.min(sizeMb * 1024L * 1024L / 16, 1 << 26));
+            entries = new long[slots * 2];
+            mask = slots - 1;
+        }
+
+        // Returns the stored count, or -1 if there is none
+        long probe(long key, int depth) {
+            int index = ((int) key & mask) * 2;
+            long data = entries[index + 1];
+            if ((entries[index] ^ data) == key && data >>> 56 == depth) {
+                return data & 0x00FF_FFFF_FFFF_FFFFL;
+            }
+            return -1;
+        }
+
+        void store(long key, int depth, long nodes) {
+            int index = ((int) key & mask) * 2;
+            long data = nodes | (long) depth << 56;
+            entries[index] = key ^ data;
+            entries[index + 1] = data;
+        }
+    }
+
+    // perft <depth> [-threads N] [-hash MB] [-divide] [fen]
+    public static void run(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: perft <depth> [-threads N] [-hash MB] [-divide] [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int threads = 1;
+        int hashMb = 0;
+        boolean divide = false;
+        StringBuilder fen = new StringBuilder();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "-divide" -> divide = true;
+                default -> fen.append(args[i]).append(' ');
+            }
+        }
+        Chessboard board = new Chessboard(fen.isEmpty() ? START_FEN : fen.toString());
+        Perft perft = new Perft(threads, hashMb);
+        if (divide) {
+            perft.divide(board, depth, System.out);
+        } else {
+            long nodes = perft.perft(board, depth);
+            System.out.println("Nodes searched: " + nodes);
+            System.out.println("Time (ms): " + perft.lastTimeMs);
+            System.out.println("Nodes/second: " + perft.getNodesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+public final class Piece {
+    // Colours
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece types
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    // Coloured pieces are indexed colour * 6 + type, so WHITE_PAWN = 0 ... BLACK_KING = 11
+    public static final int COUNT = 12;
+    public static final int NONE = -1; // Empty square
+
+    private static final String CHARS = "PNBRQKpnbrqk";
+
+    private Piece() {
+    }
+
+    public static int make(int colour, int type) {
+        return colour * 6 + type;
+    }
+
+    public static int colour(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int type(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    public static char toChar(int piece) {
+        return piece == NONE ? ' ' : CHARS.charAt(piece);
+    }
+
+    public static int fromChar(char c) {
+        return CHARS.indexOf(c); // NONE for anything that isn't a piece letter
+    }
+}
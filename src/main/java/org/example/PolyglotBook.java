@@ -0,0 +1,119 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Polyglot .bin opening book. The file is memory-mapped, so a book of any size costs no heap and pages are only
+// read when a lookup touches them. Entries are 16 bytes, big-endian and sorted by key: key (8 bytes), move (2),
+// weight (2) and a learning field (4) that we ignore. A lookup is a binary search for the position's key.
+public class PolyglotBook implements Closeable {
+    public enum Selection {
+        BEST,     // Always the move with the highest weight
+        WEIGHTED  // A random move, chosen in proportion to the weights
+    }
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+    private final PolyglotKeys keys;
+
+    private PolyglotBook(FileChannel channel, MappedByteBuffer entries, PolyglotKeys keys) {
+        this.channel = channel;
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_BYTES;
+        this.keys = keys;
+    }
+
+    public static PolyglotBook open(Path book, PolyglotKeys keys) throws IOException {
+        FileChannel channel = FileChannel.open(book, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Book is larger than 2 GB: " + book);
+        }
+        return new PolyglotBook(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), keys);
+    }
+
+    public static PolyglotBook open(Path book, Path keys) throws IOException {
+        return open(book, PolyglotKeys.load(keys));
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    // A legal book move for the side to move, or null if the position is not in the book
+    public Move probe(Chessboard board, Selection selection) {
+        long key = keys.key(board);
+        int first = firstEntry(key);
+        int totalWeight = 0;
+        int bestMove = 0, bestWeight = -1;
+        int chosen = 0;
+        for (int i = first; i < entryCount && entries.getLong(i * ENTRY_BYTES) == key; i++) {
+            int move = entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF;
+            int weight = entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+            if (weight > bestWeight) {
+                bestWeight = weight;
+                bestMove = move;
+            }
+            // Reservoir sampling by weight: each entry replaces the choice with probability weight / total so far
+            totalWeight += weight;
+            if (weight > 0 && ThreadLocalRandom.current().nextInt(totalWeight) < weight) {
+                chosen = move;
+            }
+        }
+        if (bestWeight < 0) {
+            return null;
+        }
+        int move = selection == Selection.BEST || chosen == 0 ? bestMove : chosen;
+        return toMove(board, move);
+    }
+
+    // Index of the first entry whose key is not below the given one, comparing keys as unsigned numbers
+    private int firstEntry(long key) {
+        int low = 0, high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_BYTES), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Polyglot moves: to file bits 0-2, to row 3-5, from file 6-8, from row 9-11, promotion piece 12-14.
+    // Castling is written as the king capturing its own rook, e1h1 for white short castling.
+    private static Move toMove(Chessboard board, int bookMove) {
+        int to = bookMove & 0x3F;
+        int from = (bookMove >>> 6) & 0x3F;
+        int promotion = (bookMove >>> 12) & 0x7;
+        if (Piece.type(board.pieceOn(from)) == Piece.KING && board.pieceOn(to) == Piece.make(Piece.colour(board.pieceOn(from)), Piece.ROOK)) {
+            to = to > from ? from + 2 : from - 2;
+        }
+
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = moveGenerator.generateMoves(board.isWhiteToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Move.from(move) == from && Move.to(move) == to
+                    && (promotion == 0 ? !Move.isPromotion(move) : Move.promotionType(move) == promotion)) {
+                return moveGenerator.isMoveValid(move) ? Move.fromCode(move) : null;
+            }
+        }
+        return null; // A corrupt entry or a key collision: ignore it rather than play an illegal move
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
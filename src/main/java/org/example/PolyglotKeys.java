@@ -0,0 +1,74 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Position keys as defined by the Polyglot book format. Books are sorted by these keys, so they must be computed
+// with the format's own 781 Random64 constants rather than our Zobrist keys. The constants are not shipped with
+// the engine: they are loaded from a 6248-byte file holding the 781 values as big-endian longs, in the order of
+// the Random64 array in the Polyglot sources (pg_key.c). A table that doesn't give the format's published key for
+// the start position is rejected, since every probe with it would silently miss.
+public class PolyglotKeys {
+    public static final int COUNT = 781;
+    public static final long START_POSITION_KEY = 0x463B96181691FC9CL;
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    private final long[] random64;
+
+    public PolyglotKeys(long[] random64) {
+        if (random64.length != COUNT) {
+            throw new IllegalArgumentException("Polyglot needs " + COUNT + " keys, got " + random64.length);
+        }
+        this.random64 = random64.clone();
+        if (key(new Chessboard()) != START_POSITION_KEY) {
+            throw new IllegalArgumentException("Not the standard Polyglot Random64 table: wrong start position key");
+        }
+    }
+
+    public static PolyglotKeys load(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != COUNT * Long.BYTES) {
+            throw new IllegalArgumentException(file + " should hold " + COUNT + " big-endian longs");
+        }
+        long[] random64 = new long[COUNT];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(random64);
+        return new PolyglotKeys(random64);
+    }
+
+    public long key(Chessboard board) {
+        long key = 0;
+        long occupied = board.getOccupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int piece = board.pieceOn(square);
+            // Polyglot orders pieces black pawn, white pawn, black knight, ... white king
+            int kind = 2 * Piece.type(piece) + (Piece.colour(piece) == Piece.WHITE ? 1 : 0);
+            key ^= random64[64 * kind + square];
+        }
+
+        int rights = board.getCastlingRights();
+        if ((rights & Chessboard.WHITE_KINGSIDE) != 0) key ^= random64[CASTLING_OFFSET];
+        if ((rights & Chessboard.WHITE_QUEENSIDE) != 0) key ^= random64[CASTLING_OFFSET + 1];
+        if ((rights & Chessboard.BLACK_KINGSIDE) != 0) key ^= random64[CASTLING_OFFSET + 2];
+        if ((rights & Chessboard.BLACK_QUEENSIDE) != 0) key ^= random64[CASTLING_OFFSET + 3];
+
+        // The en passant file only counts when a pawn of the side to move could actually capture
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare != -1) {
+            int us = board.isWhiteToMove() ? Piece.WHITE : Piece.BLACK;
+            if ((Bitboards.PAWN_ATTACKS[us ^ 1][enPassantSquare] & board.getPieces(us, Piece.PAWN)) != 0) {
+                key ^= random64[EN_PASSANT_OFFSET + Bitboards.col(enPassantSquare)];
+            }
+        }
+
+        if (board.isWhiteToMove()) {
+            key ^= random64[TURN_OFFSET];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,532 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One search thread: its own copy of the position and its own counters, sharing the transposition table
+public class Search {
+    private static final int CHECK_INTERVAL = 1023; // Limits are checked every 1024 nodes
+    public static final int MAX_PLY = 128;
+
+    // Scores inside the search are from the side to move's point of view (negamax); results reported outside
+    // (getLastScore, listeners) are from White's. Mate scores count down with distance from the root.
+    public static final int INFINITY = 32000;
+    public static final int MATE_SCORE = 31000;
+    public static final int MATE_BOUND = MATE_SCORE - 1000;
+
+    // A capture is skipped in quiescence when even winning the piece plus this margin can't reach alpha
+    private static final int DELTA_MARGIN = 200;
+
+    // Half-width of the first aspiration window around the previous iteration's score; doubled on each failure
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    // Null-move pruning: if passing still fails high in a reduced search, a real move will too. From
+    // NULL_MOVE_VERIFY_DEPTH a fail-high is confirmed by a reduced normal search, as a guard against zugzwang.
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_VERIFY_DEPTH = 8;
+
+    // Late move reductions: quiet moves ordered late are searched shallower, by an amount growing with depth
+    // and move number; a reduced move that beats alpha is searched again at full depth
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3; // Moves searched at full depth before any reduction
+    private static final int LMR_GOOD_HISTORY = 1000; // Moves with this much history are reduced one ply less
+    private static final int[][] LMR_REDUCTIONS = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    static {
+        for (int depth = 1; depth < MAX_PLY; depth++) {
+            for (int moveNumber = 1; moveNumber < MoveGenerator.MAX_MOVES; moveNumber++) {
+                LMR_REDUCTIONS[depth][moveNumber] = 1 + (int) (Math.log(depth) * Math.log(moveNumber) / 3);
+            }
+        }
+    }
+
+    // Lazy SMP depth staggering: helper threads skip some iterations so they don't all search the same depth
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final int id; // 0 is the main thread, which owns the clock
+    private final Chessboard board;
+    private final MoveGenerator moveGenerator;
+    private final Evaluation evaluation;
+    private final TranspositionTable transpositionTable;
+    private final PawnTable pawnTable;
+    private final EvalCache evalCache; // May be null
+    private final SearchOptions options;
+    private boolean nullMovePruning;
+    private boolean lateMoveReductions;
+    private final AtomicLong sharedNodes; // Node count across all threads, used for the node budget
+
+    private final TimeManager timeManager = new TimeManager();
+    private final SearchStatistics statistics = new SearchStatistics();
+    private List<SearchListener> listeners = List.of();
+    private final int[][] moveBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES]; // One move list per ply, reused
+    private final int[][] scoreBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES]; // Ordering scores for those lists
+    private final MoveOrdering moveOrdering;
+    private final int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+    // Triangular principal variation table: pvTable[ply] holds the best line found from that ply
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] principalVariation = new int[0]; // From the last completed iteration
+    private int rootMoveCount;
+    private volatile boolean stopRequested;
+    private SearchLimits limits;
+    private boolean rootWhite;
+    private boolean pondering;
+    private boolean aborted;
+    private long nodes;
+    private Move bestMove;
+    private int completedDepth;
+    private int lastScore;
+
+    public Search(int id, Chessboard position, TranspositionTable transpositionTable, PawnTable pawnTable, EvalCache evalCache,
+                  SearchOptions options, AtomicLong sharedNodes) {
+        this.id = id;
+        this.board = new Chessboard(position);
+        this.moveGenerator = new MoveGenerator(board);
+        this.evaluation = new Evaluation(board, pawnTable, evalCache);
+        this.pawnTable = pawnTable;
+        this.evalCache = evalCache;
+        this.options = options;
+        this.moveOrdering = new MoveOrdering(moveGenerator);
+        this.transpositionTable = transpositionTable;
+        this.sharedNodes = sharedNodes;
+    }
+
+    // Iterative deepening: search depth 1, 2, ... until a limit is hit and keep the last completed result
+    public Move run(SearchLimits limits) {
+        boolean isWhite = board.isWhiteToMove();
+        this.limits = limits;
+        rootWhite = isWhite;
+        pondering = limits.isPonder();
+        aborted = false;
+        nullMovePruning = options.isNullMovePruning();
+        lateMoveReductions = options.isLateMoveReductions();
+        timeManager.start(limits, isWhite);
+        long pawnProbes = pawnTable.getProbes(), pawnHits = pawnTable.getHits();
+        long evalProbes = evalCache == null ? 0 : evalCache.getProbes(), evalHits = evalCache == null ? 0 : evalCache.getHits();
+
+        rootMoveCount = moveGenerator.generateLegalMoves(rootMoves);
+        if (rootMoveCount == 0) {
+            return null;
+        }
+        if (id > 0) {
+            // Start helpers on a different root move so they fill the table with different subtrees
+            rotateRootMoves(id % rootMoveCount);
+        }
+
+        int bestCode = rootMoves[0];
+        bestMove = Move.fromCode(bestCode);
+        principalVariation = new int[]{bestCode};
+        int score = 0;
+        for (int depth = 1; depth <= limits.getMaxDepth(); depth++) {
+            if (id > 0 && depth > 1 && skipDepth(depth)) continue;
+
+            // Aspiration: search a narrow window around the last score and widen it only on the side that failed
+            int window = ASPIRATION_WINDOW;
+            int alpha = -INFINITY, beta = INFINITY;
+            if (depth >= ASPIRATION_MIN_DEPTH && Math.abs(score) < MATE_BOUND) {
+                alpha = Math.max(score - window, -INFINITY);
+                beta = Math.min(score + window, INFINITY);
+            }
+            while (true) {
+                int result = searchRoot(depth, alpha, beta);
+                if (aborted) break;
+                if (result <= alpha && alpha > -INFINITY) {
+                    alpha = Math.max(result - window, -INFINITY);
+                } else if (result >= beta && beta < INFINITY) {
+                    beta = Math.min(result + window, INFINITY);
+                } else {
+                    score = result;
+                    break;
+                }
+                window *= 2;
+            }
+            if (aborted) break; // The unfinished iteration is discarded
+
+            principalVariation = Arrays.copyOf(pvTable[0], pvLength[0]);
+            bestCode = principalVariation[0];
+            bestMove = Move.fromCode(bestCode);
+            int whiteScore = isWhite ? score : -score;
+            lastScore = whiteScore;
+            completedDepth = depth;
+            moveToFront(bestCode); // Search the best move first in the next iteration
+            statistics.completeIteration(depth, nodes, timeManager.elapsedMs());
+            SearchEvents.IterationEvent event = new SearchEvents.IterationEvent();
+            if (event.shouldCommit()) {
+                event.searchThread = id;
+                event.depth = depth;
+                event.score = whiteScore;
+                event.nodes = nodes;
+                event.pv = toUci(principalVariation);
+                event.commit();
+            }
+            if (!listeners.isEmpty()) {
+                List<Move> pv = getPrincipalVariation();
+                for (SearchListener listener : listeners) {
+                    listener.iterationCompleted(depth, whiteScore, sharedNodes.get() + (nodes & CHECK_INTERVAL), timeManager.elapsedMs(), pv);
+                }
+            }
+
+            checkPonderhit();
+            if (id == 0 && !pondering && !limits.isInfinite()
+                    && (Math.abs(score) > MATE_BOUND || rootMoveCount == 1 || !timeManager.shouldStartIteration())) break;
+        }
+        if (aborted && id == 0) {
+            SearchEvents.AbortedEvent event = new SearchEvents.AbortedEvent();
+            if (event.shouldCommit()) {
+                event.depth = completedDepth + 1;
+                event.nodes = nodes;
+                event.stopRequested = stopRequested;
+                event.commit();
+            }
+        }
+        sharedNodes.addAndGet(nodes & CHECK_INTERVAL); // Nodes not yet published by checkLimits
+        statistics.addPawnTableProbes(pawnTable.getProbes() - pawnProbes, pawnTable.getHits() - pawnHits);
+        if (evalCache != null) {
+            statistics.addEvalCacheProbes(evalCache.getProbes() - evalProbes, evalCache.getHits() - evalHits);
+        }
+        statistics.finish(nodes, timeManager.elapsedMs());
+        return bestMove;
+    }
+
+    // Principal variation search over the root moves. The first move gets the full window; the others are only
+    // proven worse with a null window, and re-searched in full if that proof fails.
+    private int searchRoot(int depth, int alpha, int beta) {
+        pvLength[0] = 0;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < rootMoveCount; i++) {
+            int move = rootMoves[i];
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -alphaBeta(depth - 1, 1, -beta, -alpha, true);
+            } else {
+                score = -alphaBeta(depth - 1, 1, -alpha - 1, -alpha, true);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -alphaBeta(depth - 1, 1, -beta, -alpha, true);
+                }
+            }
+            board.undoMove(move);
+            if (aborted) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(0, move);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = Math.max(pvLength[ply + 1], ply + 1);
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    private static String toUci(int[] moves) {
+        StringBuilder uci = new StringBuilder();
+        for (int move : moves) {
+            if (uci.length() > 0) uci.append(' ');
+            uci.append(Move.toUci(move));
+        }
+        return uci.toString();
+    }
+
+    private void moveToFront(int move) {
+        int i = 0;
+        while (rootMoves[i] != move) i++;
+        System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+        rootMoves[0] = move;
+    }
+
+    private void rotateRootMoves(int distance) {
+        int[] rotated = new int[rootMoveCount];
+        for (int i = 0; i < rootMoveCount; i++) {
+            rotated[(i + distance) % rootMoveCount] = rootMoves[i];
+        }
+        System.arraycopy(rotated, 0, rootMoves, 0, rootMoveCount);
+    }
+
+    private boolean skipDepth(int depth) {
+        int i = (id - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0;
+    }
+
+    // Can be called from another thread; the search returns its last completed result shortly after
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    // Called with the iteration results; only the main thread's listeners are set
+    void setListeners(List<SearchListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    // The expected line of play from the root, best move first, as of the last completed iteration
+    public List<Move> getPrincipalVariation() {
+        List<Move> moves = new ArrayList<>(principalVariation.length);
+        for (int move : principalVariation) {
+            moves.add(Move.fromCode(move));
+        }
+        return moves;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    // True if the last run was stopped in the middle of an iteration rather than ending after one
+    public boolean wasAborted() {
+        return aborted;
+    }
+
+    public long getElapsedMs() {
+        return timeManager.elapsedMs();
+    }
+
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    // Negamax principal variation search. Only the first move of a node is searched with the full window; the
+    // rest get a null window around alpha and are re-searched only if they turn out better. With good move
+    // ordering most of those proofs succeed, and null-window searches cut off much sooner.
+    // allowNull is false right after a null move, so two passes in a row can't skip a ply pair for free
+    private int alphaBeta(int depth, int ply, int alpha, int beta, boolean allowNull) {
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        // A bitbase draw is exact, so there is nothing to search below it. Proven wins are still searched: the
+        // evaluation ranks them above everything else, and the search finds the way to mate or promotion.
+        Bitbases bitbases = board.getBitbases();
+        if (ply > 0 && bitbases != null && Long.bitCount(board.getOccupied()) == 3
+                && bitbases.probe(board) == Bitbases.Result.DRAW) {
+            return 0;
+        }
+
+        if (depth == 0) {
+            return quiescence(ply, alpha, beta); // Resolve captures before trusting the evaluation
+        }
+        boolean white = board.isWhiteToMove();
+        if (board.checkGameOver() || ply >= MAX_PLY - 1) {
+            return evaluation.evaluateBoard(white);
+        }
+
+        // Reuse the result of an earlier search of this position if it was deep enough. Not in PV nodes, where
+        // a cutoff would cut the principal variation short.
+        boolean pvNode = beta - alpha > 1;
+        long key = board.getZobristKey();
+        long entry = transpositionTable.probe(key);
+        statistics.addTableProbe(entry != 0);
+        int hashMove = entry != 0 ? TranspositionTable.getMove(entry) : Move.NONE;
+        if (!pvNode && entry != 0 && TranspositionTable.getDepth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+            int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                return score;
+            }
+        }
+
+        boolean inCheck = moveGenerator.isKingInCheck(white);
+        if (nullMovePruning && allowNull && !pvNode && !inCheck && depth >= NULL_MOVE_MIN_DEPTH
+                && Math.abs(beta) < MATE_BOUND && hasPieces(white) && evaluation.evaluateBoard(white) >= beta) {
+            int reduction = depth >= 6 ? 3 : 2;
+            board.makeNullMove();
+            int score = -alphaBeta(Math.max(0, depth - 1 - reduction), ply + 1, -beta, -beta + 1, false);
+            board.undoNullMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                if (depth < NULL_MOVE_VERIFY_DEPTH
+                        || alphaBeta(depth - 1 - reduction, ply, beta - 1, beta, false) >= beta) {
+                    return score >= MATE_BOUND ? beta : score; // A mate found by passing is not a real mate
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int searchedMoves = 0;
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = moveGenerator.generateLegalMoves(moves);
+        if (count == 0) {
+            // No legal moves: checkmate or stalemate
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+        moveOrdering.scoreMoves(board, moves, scores, count, hashMove, ply);
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrdering.pickNext(moves, scores, i, count);
+            board.makeMove(move);
+            int score;
+            if (searchedMoves == 0) {
+                score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha, true);
+            } else {
+                int reduction = 0;
+                if (lateMoveReductions && depth >= LMR_MIN_DEPTH && searchedMoves >= LMR_MIN_MOVES && !inCheck
+                        && !Move.isCapture(move) && !Move.isPromotion(move) && !moveGenerator.isKingInCheck(!white)) {
+                    reduction = LMR_REDUCTIONS[depth][searchedMoves];
+                    if (pvNode) reduction--;
+                    if (moveOrdering.isKiller(move, ply) || moveOrdering.getHistory(move, white) >= LMR_GOOD_HISTORY) reduction--;
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+                score = -alphaBeta(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, true);
+                if (score > alpha && reduction > 0 && !aborted) {
+                    score = -alphaBeta(depth - 1, ply + 1, -alpha - 1, -alpha, true);
+                }
+                if (score > alpha && score < beta && !aborted) {
+                    score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha, true);
+                }
+            }
+            board.undoMove(move);
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        statistics.addBetaCutoff(searchedMoves);
+                        moveOrdering.recordCutoff(move, ply, depth, white);
+                        break;
+                    }
+                }
+            }
+            searchedMoves++;
+        }
+
+        int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    // Null-move safeguard: with only king and pawns left, zugzwang is common and passing would be misleading
+    private boolean hasPieces(boolean white) {
+        int colour = white ? Piece.WHITE : Piece.BLACK;
+        return (board.getOccupancy(colour) & ~board.getPieces(colour, Piece.PAWN) & ~board.getPieces(colour, Piece.KING)) != 0;
+    }
+
+    // Searches captures and promotions only, so the static evaluation is never taken in the middle of an exchange.
+    // The side to move may also "stand pat" on the evaluation instead of capturing. In check every move is searched,
+    // since standing pat is not an option when the king is attacked.
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        statistics.addQuiescenceNode();
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        boolean white = board.isWhiteToMove();
+        int standPat = evaluation.evaluateBoard(white);
+        if (ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        boolean inCheck = moveGenerator.isKingInCheck(white);
+        int bestScore;
+        if (inCheck) {
+            bestScore = -MATE_SCORE + ply; // Stays this way if there is no evasion
+        } else {
+            bestScore = standPat;
+            if (standPat >= beta) return standPat;
+            alpha = Math.max(alpha, standPat);
+        }
+
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = inCheck ? moveGenerator.generateLegalMoves(moves) : moveGenerator.generateLegalCaptures(moves);
+        moveOrdering.scoreMoves(board, moves, scores, count, Move.NONE, ply);
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrdering.pickNext(moves, scores, i, count);
+            if (!inCheck && !Move.isPromotion(move)) {
+                // Delta pruning: skip captures that can't bring the score back into the window
+                int victim = Move.flags(move) == Move.EN_PASSANT ? Piece.PAWN : Piece.type(board.pieceOn(Move.to(move)));
+                if (standPat + Evaluation.pieceValue(victim) + DELTA_MARGIN <= alpha) continue;
+                // Captures that lose material in the exchange can't improve on standing pat
+                if (moveOrdering.isLosingCapture(board, move)) continue;
+            }
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.undoMove(move);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private void checkLimits() {
+        long totalNodes = sharedNodes.addAndGet(CHECK_INTERVAL + 1);
+        checkPonderhit();
+        if (stopRequested
+                || (id == 0 && !pondering && timeManager.hardLimitReached())
+                || (limits.getNodes() > 0 && totalNodes >= limits.getNodes())) {
+            aborted = true;
+        }
+    }
+
+    // The predicted move was played: the clock starts now
+    private void checkPonderhit() {
+        if (pondering && !limits.isPonder()) {
+            pondering = false;
+            timeManager.start(limits, rootWhite);
+        }
+    }
+
+    // Mate scores are stored relative to the node rather than the root so they stay valid at any ply
+    private static int scoreToTable(int score, int ply) {
+        if (score > MATE_BOUND) return score + ply;
+        if (score < -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score > MATE_BOUND) return score - ply;
+        if (score < -MATE_BOUND) return score + ply;
+        return score;
+    }
+}
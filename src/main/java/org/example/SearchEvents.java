@@ -0,0 +1,85 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder events for the search. All are disabled unless a recording turns them on, e.g.
+// -XX:StartFlightRecording with a settings file enabling org.example.*, and cost next to nothing while off.
+public final class SearchEvents {
+    private SearchEvents() {
+    }
+
+    @Name("org.example.Search")
+    @Label("Search")
+    @Description("One call to SearchPool.search, from start to the returned move")
+    @Category({"Chess Engine", "Search"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class SearchEvent extends Event {
+        @Label("Threads")
+        public int threads;
+        @Label("Depth Limit")
+        public int maxDepth;
+        @Label("Completed Depth")
+        public int completedDepth;
+        @Label("Nodes")
+        public long nodes;
+        @Label("Score")
+        public int score;
+        @Label("Best Move")
+        public String bestMove;
+    }
+
+    @Name("org.example.Iteration")
+    @Label("Search Iteration")
+    @Description("An iterative deepening iteration completed by a search thread")
+    @Category({"Chess Engine", "Search"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class IterationEvent extends Event {
+        @Label("Search Thread")
+        public int searchThread;
+        @Label("Depth")
+        public int depth;
+        @Label("Score")
+        public int score;
+        @Label("Nodes")
+        public long nodes;
+        @Label("Principal Variation")
+        public String pv;
+    }
+
+    @Name("org.example.SearchAborted")
+    @Label("Search Aborted")
+    @Description("The main search thread stopped in the middle of an iteration")
+    @Category({"Chess Engine", "Search"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class AbortedEvent extends Event {
+        @Label("Depth")
+        public int depth;
+        @Label("Nodes")
+        public long nodes;
+        @Label("Stop Requested")
+        public boolean stopRequested;
+    }
+
+    @Name("org.example.TableResize")
+    @Label("Transposition Table Resize")
+    @Category({"Chess Engine", "Transposition Table"})
+    @Enabled(false)
+    public static class TableResizeEvent extends Event {
+        @Label("Old Size")
+        @DataAmount
+        public long oldSize;
+        @Label("New Size")
+        @DataAmount
+        public long newSize;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+public class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+
+    // 0 means "no limit" for every budget below
+    private int maxDepth = MAX_DEPTH;
+    private long nodes;
+    private long moveTimeMs;
+    private long whiteTimeMs, blackTimeMs;
+    private long whiteIncrementMs, blackIncrementMs;
+    private int movesToGo;
+    private boolean infinite; // Search until stopped, even after finding a mate
+    private volatile boolean ponder; // Cleared by ponderhit while the search is running
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits().setMaxDepth(maxDepth);
+    }
+
+    public static SearchLimits moveTime(long moveTimeMs) {
+        return new SearchLimits().setMoveTime(moveTimeMs);
+    }
+
+    public SearchLimits setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+        return this;
+    }
+
+    public SearchLimits setNodes(long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    public SearchLimits setMoveTime(long moveTimeMs) {
+        this.moveTimeMs = moveTimeMs;
+        return this;
+    }
+
+    // Clock-based limits, as sent by a GUI: remaining time and increment per side
+    public SearchLimits setClock(long whiteTimeMs, long blackTimeMs, long whiteIncrementMs, long blackIncrementMs, int movesToGo) {
+        this.whiteTimeMs = whiteTimeMs;
+        this.blackTimeMs = blackTimeMs;
+        this.whiteIncrementMs = whiteIncrementMs;
+        this.blackIncrementMs = blackIncrementMs;
+        this.movesToGo = movesToGo;
+        return this;
+    }
+
+    public SearchLimits setInfinite(boolean infinite) {
+        this.infinite = infinite;
+        return this;
+    }
+
+    // Pondering ignores the clock until ponderhit, then the clock limits apply from that moment
+    public SearchLimits setPonder(boolean ponder) {
+        this.ponder = ponder;
+        return this;
+    }
+
+    // Can be called from another thread while a search with these limits is running
+    public void ponderhit() {
+        ponder = false;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMoveTime() {
+        return moveTimeMs;
+    }
+
+    public long getTimeLeft(boolean isWhite) {
+        return isWhite ? whiteTimeMs : blackTimeMs;
+    }
+
+    public long getIncrement(boolean isWhite) {
+        return isWhite ? whiteIncrementMs : blackIncrementMs;
+    }
+
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    public boolean isInfinite() {
+        return infinite;
+    }
+
+    public boolean isPonder() {
+        return ponder;
+    }
+}
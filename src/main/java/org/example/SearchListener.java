@@ -0,0 +1,13 @@
+package org.example;
+
+import java.util.List;
+
+// Receives progress from searches run by a SearchPool; both methods are called on the main search thread
+public interface SearchListener {
+    // nodes are counted over all search threads; the principal variation starts with the best move
+    default void iterationCompleted(int depth, int score, long nodes, long timeMs, List<Move> principalVariation) {
+    }
+
+    default void searchCompleted(SearchStatistics statistics) {
+    }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Publishes the statistics of the last completed search over JMX, e.g. for a monitoring agent to scrape
+public class SearchMetrics implements SearchListener, SearchMetricsMXBean {
+    public static final String OBJECT_NAME = "org.example:type=SearchMetrics";
+
+    private static SearchMetrics registered; // The one published under OBJECT_NAME, if any
+
+    private final SearchPool pool;
+    private volatile SearchStatistics last = new SearchStatistics();
+    private volatile long searches;
+
+    private SearchMetrics(SearchPool pool) {
+        this.pool = pool;
+    }
+
+    // Listens to the pool's searches and registers with the platform MBean server. There is one name per JVM,
+    // so registering another pool replaces the earlier registration and stops it listening.
+    public static synchronized SearchMetrics register(SearchPool pool) {
+        SearchMetrics metrics = new SearchMetrics(pool);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+        if (registered != null) {
+            registered.pool.removeListener(registered);
+        }
+        registered = metrics;
+        pool.addListener(metrics);
+        return metrics;
+    }
+
+    @Override
+    public void searchCompleted(SearchStatistics statistics) {
+        last = statistics;
+        searches++;
+    }
+
+    @Override
+    public long getSearches() {
+        return searches;
+    }
+
+    @Override
+    public long getNodes() {
+        return last.getNodes();
+    }
+
+    @Override
+    public long getQuiescenceNodes() {
+        return last.getQuiescenceNodes();
+    }
+
+    @Override
+    public long getNodesPerSecond() {
+        return last.getNodesPerSecond();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        return last.getTableHitRate();
+    }
+
+    @Override
+    public double getPawnTableHitRate() {
+        return last.getPawnTableHitRate();
+    }
+
+    @Override
+    public long getEvalCacheHits() {
+        return last.getEvalCacheHits();
+    }
+
+    @Override
+    public long getEvalCacheMisses() {
+        return last.getEvalCacheMisses();
+    }
+
+    @Override
+    public long getBetaCutoffs() {
+        return last.getBetaCutoffs();
+    }
+
+    @Override
+    public double getFirstMoveCutoffRatio() {
+        return last.getFirstMoveCutoffRatio();
+    }
+
+    @Override
+    public double getEffectiveBranchingFactor() {
+        return last.getEffectiveBranchingFactor();
+    }
+
+    @Override
+    public int getCompletedDepth() {
+        return last.getCompletedDepth();
+    }
+
+    @Override
+    public long getTimeMs() {
+        return last.getTimeMs();
+    }
+
+    @Override
+    public long[] getIterationTimesMs() {
+        SearchStatistics statistics = last;
+        long[] times = new long[statistics.getCompletedDepth()];
+        for (int depth = 1; depth <= times.length; depth++) {
+            times[depth - 1] = statistics.getIterationTimeMs(depth);
+        }
+        return times;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example;
+
+// Management view of the last completed search, see SearchMetrics
+public interface SearchMetricsMXBean {
+    long getSearches();
+
+    long getNodes();
+
+    long getQuiescenceNodes();
+
+    long getNodesPerSecond();
+
+    double getTableHitRate();
+
+    double getPawnTableHitRate();
+
+    long getEvalCacheHits();
+
+    long getEvalCacheMisses();
+
+    long getBetaCutoffs();
+
+    double getFirstMoveCutoffRatio();
+
+    double getEffectiveBranchingFactor();
+
+    int getCompletedDepth();
+
+    long getTimeMs();
+
+    long[] getIterationTimesMs();
+}
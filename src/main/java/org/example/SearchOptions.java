@@ -0,0 +1,26 @@
+package org.example;
+
+// Switches for selective search features, so each one can be turned off to measure what it is worth.
+// Read when a search starts; changing them during a search affects the next one.
+public class SearchOptions {
+    private volatile boolean nullMovePruning = true;
+    private volatile boolean lateMoveReductions = true;
+
+    public SearchOptions setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+        return this;
+    }
+
+    public SearchOptions setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+        return this;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+}
@@ -0,0 +1,224 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lazy SMP: the main search runs on the calling thread while helpers search the same position
+// on their own board copies, sharing results only through the transposition table
+public class SearchPool {
+    private static final int DEFAULT_HASH_MB = 64;
+    private static final int DEFAULT_EVAL_CACHE_MB = 1;
+
+    private final TranspositionTable transpositionTable;
+    private int threadCount = 1;
+    private ExecutorService helpers;
+    private volatile Search[] searches = new Search[0];
+    private PawnTable[] pawnTables = new PawnTable[0]; // One per thread, kept between searches
+    private EvalCache[] evalCaches = new EvalCache[0]; // Likewise
+    private int evalCacheMb = DEFAULT_EVAL_CACHE_MB;
+    private SearchOptions options = new SearchOptions();
+    private final AtomicLong totalNodes = new AtomicLong();
+    private Search result;
+    private SearchStatistics statistics = new SearchStatistics();
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+
+    public SearchPool() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    public SearchPool(int hashMb) {
+        transpositionTable = new TranspositionTable(hashMb);
+    }
+
+    public void setThreads(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        if (helpers != null) {
+            helpers.shutdown();
+            helpers = null;
+        }
+    }
+
+    public int getThreads() {
+        return threadCount;
+    }
+
+    public void setHashSize(int sizeMb) {
+        transpositionTable.resize(sizeMb);
+    }
+
+    // Per thread; 0 turns the cache off
+    public void setEvalCacheSize(int sizeMb) {
+        evalCacheMb = Math.max(0, sizeMb);
+        evalCaches = new EvalCache[0];
+    }
+
+    public int getEvalCacheSize() {
+        return evalCacheMb;
+    }
+
+    // Needed when something the evaluation depends on changes, such as the bitbases
+    public void clearEvalCaches() {
+        for (EvalCache evalCache : evalCaches) {
+            evalCache.clear();
+        }
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(SearchOptions options) {
+        this.options = options;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public void addListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Move search(Chessboard position, SearchLimits limits) {
+        SearchEvents.SearchEvent event = new SearchEvents.SearchEvent();
+        event.begin();
+        transpositionTable.newSearch();
+        totalNodes.set(0);
+        if (pawnTables.length != threadCount) {
+            pawnTables = Arrays.copyOf(pawnTables, threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                if (pawnTables[i] == null) pawnTables[i] = new PawnTable();
+            }
+        }
+        if (evalCacheMb > 0 && evalCaches.length != threadCount) {
+            evalCaches = Arrays.copyOf(evalCaches, threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                if (evalCaches[i] == null) evalCaches[i] = new EvalCache(evalCacheMb);
+            }
+        }
+        Search[] searches = new Search[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            EvalCache evalCache = evalCacheMb > 0 ? evalCaches[i] : null;
+            searches[i] = new Search(i, position, transpositionTable, pawnTables[i], evalCache, options, totalNodes);
+        }
+        this.searches = searches;
+        searches[0].setListeners(listeners);
+
+        // Helpers only stop when the main search tells them to
+        SearchLimits helperLimits = new SearchLimits().setMaxDepth(limits.getMaxDepth()).setNodes(limits.getNodes());
+        Future<?>[] futures = new Future<?>[threadCount - 1];
+        for (int i = 1; i < threadCount; i++) {
+            Search helper = searches[i];
+            futures[i - 1] = helpers().submit(() -> helper.run(helperLimits));
+        }
+
+        searches[0].run(limits);
+
+        for (int i = 1; i < threadCount; i++) {
+            searches[i].stop();
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+
+        // The main thread's move stands whenever it ended after a completed iteration: it stops early on a mate, a
+        // forced move or the soft limit, and a helper that kept going must not override what it reported. Only when
+        // it was cut off mid-iteration can a helper that finished a deeper one take over.
+        result = searches[0];
+        if (searches[0].wasAborted()) {
+            for (Search search : searches) {
+                if (search.getBestMove() != null && search.getCompletedDepth() > result.getCompletedDepth()) {
+                    result = search;
+                }
+            }
+        }
+        if (result != searches[0]) {
+            // Report the helper's line too, so the last iteration the listeners saw matches the move played
+            List<Move> principalVariation = result.getPrincipalVariation();
+            for (SearchListener listener : listeners) {
+                listener.iterationCompleted(result.getCompletedDepth(), result.getLastScore(), getNodes(),
+                        searches[0].getElapsedMs(), principalVariation);
+            }
+        }
+
+        // Iteration data comes from the main thread, the counters from all of them
+        statistics = searches[0].getStatistics();
+        for (int i = 1; i < threadCount; i++) {
+            statistics.add(searches[i].getStatistics());
+        }
+        for (SearchListener listener : listeners) {
+            listener.searchCompleted(statistics);
+        }
+        if (event.shouldCommit()) {
+            event.threads = threadCount;
+            event.maxDepth = limits.getMaxDepth();
+            event.completedDepth = result.getCompletedDepth();
+            event.nodes = statistics.getNodes();
+            event.score = result.getLastScore();
+            event.bestMove = result.getBestMove() == null ? null : Move.toUci(result.getBestMove().toCode());
+            event.commit();
+        }
+        return result.getBestMove();
+    }
+
+    // Principal variation of the last search, best move first
+    public List<Move> getPrincipalVariation() {
+        return result == null ? List.of() : result.getPrincipalVariation();
+    }
+
+    // Can be called from another thread
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    // Aggregated over all threads of the last (or running) search
+    public long getNodes() {
+        long nodes = 0;
+        for (Search search : searches) {
+            nodes += search.getNodes();
+        }
+        return nodes;
+    }
+
+    // Statistics of the last completed search
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    public int getCompletedDepth() {
+        return result == null ? 0 : result.getCompletedDepth();
+    }
+
+    public int getLastScore() {
+        return result == null ? 0 : result.getLastScore();
+    }
+
+    private ExecutorService helpers() {
+        if (helpers == null) {
+            helpers = Executors.newFixedThreadPool(threadCount - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return helpers;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+// Counters for one search. Each search thread fills its own; SearchPool adds them up when the search ends.
+// Iteration data comes from the main thread only, since helpers skip depths.
+public class SearchStatistics {
+    private long nodes;
+    private long quiescenceNodes;
+    private long tableProbes;
+    private long tableHits;
+    private long pawnTableProbes;
+    private long pawnTableHits;
+    private long evalCacheProbes;
+    private long evalCacheHits;
+    private long betaCutoffs;
+    private long firstMoveCutoffs; // Cutoffs caused by the first move searched, a measure of move ordering
+    private long timeMs;
+    private int completedDepth;
+    private final long[] iterationNodes = new long[SearchLimits.MAX_DEPTH + 1]; // Nodes spent on each iteration
+    private final long[] iterationTimeMs = new long[SearchLimits.MAX_DEPTH + 1];
+    private long iterationStartNodes;
+    private long iterationStartMs;
+
+    void addQuiescenceNode() {
+        quiescenceNodes++;
+    }
+
+    void addTableProbe(boolean hit) {
+        tableProbes++;
+        if (hit) tableHits++;
+    }
+
+    void addPawnTableProbes(long probes, long hits) {
+        pawnTableProbes += probes;
+        pawnTableHits += hits;
+    }
+
+    void addEvalCacheProbes(long probes, long hits) {
+        evalCacheProbes += probes;
+        evalCacheHits += hits;
+    }
+
+    void addBetaCutoff(int moveIndex) {
+        betaCutoffs++;
+        if (moveIndex == 0) firstMoveCutoffs++;
+    }
+
+    // nodes and elapsedMs are totals since the search started
+    void completeIteration(int depth, long nodes, long elapsedMs) {
+        iterationNodes[depth] = nodes - iterationStartNodes;
+        iterationTimeMs[depth] = elapsedMs - iterationStartMs;
+        iterationStartNodes = nodes;
+        iterationStartMs = elapsedMs;
+        completedDepth = depth;
+    }
+
+    void finish(long nodes, long timeMs) {
+        this.nodes = nodes;
+        this.timeMs = timeMs;
+    }
+
+    // Sums the counters of a helper thread into these
+    void add(SearchStatistics other) {
+        nodes += other.nodes;
+        quiescenceNodes += other.quiescenceNodes;
+        tableProbes += other.tableProbes;
+        tableHits += other.tableHits;
+        pawnTableProbes += other.pawnTableProbes;
+        pawnTableHits += other.pawnTableHits;
+        evalCacheProbes += other.evalCacheProbes;
+        evalCacheHits += other.evalCacheHits;
+        betaCutoffs += other.betaCutoffs;
+        firstMoveCutoffs += other.firstMoveCutoffs;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMs);
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    public double getPawnTableHitRate() {
+        return pawnTableProbes == 0 ? 0 : (double) pawnTableHits / pawnTableProbes;
+    }
+
+    public long getEvalCacheHits() {
+        return evalCacheHits;
+    }
+
+    public long getEvalCacheMisses() {
+        return evalCacheProbes - evalCacheHits;
+    }
+
+    public double getEvalCacheHitRate() {
+        return evalCacheProbes == 0 ? 0 : (double) evalCacheHits / evalCacheProbes;
+    }
+
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    public double getFirstMoveCutoffRatio() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    // How many times more nodes the last iteration needed than the one before it
+    public double getEffectiveBranchingFactor() {
+        if (completedDepth < 2 || iterationNodes[completedDepth - 1] == 0) return 0;
+        return (double) iterationNodes[completedDepth] / iterationNodes[completedDepth - 1];
+    }
+
+    public long getIterationNodes(int depth) {
+        return iterationNodes[depth];
+    }
+
+    public long getIterationTimeMs(int depth) {
+        return iterationTimeMs[depth];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d nodes %d qnodes %d nps %d tt hits %.1f%% pawn hits %.1f%% eval hits %.1f%% "
+                        + "cutoffs %d first-move %.1f%% ebf %.2f time %dms",
+                completedDepth, nodes, quiescenceNodes, getNodesPerSecond(), 100 * getTableHitRate(), 100 * getPawnTableHitRate(),
+                100 * getEvalCacheHitRate(), betaCutoffs, 100 * getFirstMoveCutoffRatio(), getEffectiveBranchingFactor(), timeMs);
+    }
+}
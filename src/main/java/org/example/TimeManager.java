@@ -0,0 +1,40 @@
+package org.example;
+
+public class TimeManager {
+    private static final long MOVE_OVERHEAD_MS = 30; // Slack for GUI and transport latency
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private long startTime;
+    private long softLimitNanos; // Don't start another iteration after this
+    private long hardLimitNanos; // Abort the running iteration after this
+
+    public void start(SearchLimits limits, boolean isWhite) {
+        startTime = System.nanoTime();
+        long softMs = 0, hardMs = 0;
+        long timeLeft = limits.getTimeLeft(isWhite);
+        if (limits.getMoveTime() > 0) {
+            softMs = hardMs = Math.max(1, limits.getMoveTime() - MOVE_OVERHEAD_MS);
+        } else if (timeLeft > 0) {
+            long usable = Math.max(1, timeLeft - MOVE_OVERHEAD_MS);
+            int movesToGo = limits.getMovesToGo() > 0 ? limits.getMovesToGo() : DEFAULT_MOVES_TO_GO;
+            softMs = Math.min(usable, usable / movesToGo + limits.getIncrement(isWhite) * 3 / 4);
+            hardMs = Math.min(usable / 4 + limits.getIncrement(isWhite), softMs * 4);
+            hardMs = Math.min(Math.max(hardMs, softMs), usable); // An increment only arrives after the move
+        }
+        softLimitNanos = softMs > 0 ? softMs * 1_000_000 : Long.MAX_VALUE;
+        hardLimitNanos = hardMs > 0 ? hardMs * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    public long elapsedMs() {
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    // An iteration usually takes several times as long as the previous one, so stop at half the soft limit
+    public boolean shouldStartIteration() {
+        return softLimitNanos == Long.MAX_VALUE || System.nanoTime() - startTime < softLimitNanos / 2;
+    }
+
+    public boolean hardLimitReached() {
+        return hardLimitNanos != Long.MAX_VALUE && System.nanoTime() - startTime >= hardLimitNanos;
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+    // Bound types; 0 is left unused so an all-zero slot reads as empty
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int BUCKET_SIZE = 4; // Entries per bucket: 4 x 16 bytes fills one cache line
+    private static final int ENTRY_BYTES = 16;
+
+    // Each entry is two longs: (key ^ data, data). A reader only accepts an entry whose two halves
+    // agree, so a torn read from a concurrent writer looks like a miss instead of a wrong hit.
+    private long[] entries;
+    private int bucketMask;
+    private int age;
+
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    public void resize(int sizeMb) {
+        SearchEvents.TableResizeEvent event = new SearchEvents.TableResizeEvent();
+        event.begin();
+        long bytes = Math.max(1, sizeMb) * 1024L * 1024L;
+        int buckets = Integer.highestOneBit((int) Math.min(bytes / (BUCKET_SIZE * ENTRY_BYTES), 1 << 26));
+        event.oldSize = entries == null ? 0 : (long) entries.length * Long.BYTES;
+        entries = new long[buckets * BUCKET_SIZE * 2];
+        bucketMask = buckets - 1;
+        age = 0;
+        event.newSize = (long) entries.length * Long.BYTES;
+        event.commit();
+    }
+
+    public int getSizeMb() {
+        return (int) ((long) entries.length * Long.BYTES / (1024 * 1024));
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+        age = 0;
+    }
+
+    // Called once per search so entries from earlier searches are replaced first
+    public void newSearch() {
+        age = (age + 1) & 0x3F;
+    }
+
+    // Returns the packed entry data for the key, or 0 if there is none
+    public long probe(long key) {
+        int index = ((int) key & bucketMask) * BUCKET_SIZE * 2;
+        for (int i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+            long data = entries[i + 1];
+            if ((entries[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = ((int) key & bucketMask) * BUCKET_SIZE * 2;
+        int replace = index;
+        int worstValue = Integer.MAX_VALUE;
+        for (int i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+            long data = entries[i + 1];
+            if ((entries[i] ^ data) == key || data == 0) {
+                if (move == 0 && data != 0) {
+                    move = getMove(data); // Keep the old best move rather than losing it
+                }
+                replace = i;
+                break;
+            }
+            // Prefer to overwrite shallow entries and entries left over from older searches
+            int staleness = (age - getAge(data)) & 0x3F;
+            int value = getDepth(data) - 8 * staleness;
+            if (value < worstValue) {
+                worstValue = value;
+                replace = i;
+            }
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) age << 42);
+        entries[replace] = key ^ data;
+        entries[replace + 1] = data;
+    }
+
+    public static int getMove(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int getScore(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int getDepth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int getBound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private static int getAge(long data) {
+        return (int) ((data >>> 42) & 0x3F);
+    }
+}
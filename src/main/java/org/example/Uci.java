@@ -0,0 +1,295 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+// Universal Chess Interface front-end. Commands are read on the calling thread while the search runs on a
+// worker thread, so stop and ponderhit take effect in the middle of a search. The statistics of every search are
+// published over JMX as SearchMetrics.OBJECT_NAME; start the JVM with the usual com.sun.management.jmxremote
+// properties to scrape them from outside the process.
+public class Uci implements SearchListener {
+    private static final String ENGINE_NAME = "Chess2DArray";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+    private static final int MAX_EVAL_CACHE_MB = 256;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Chessboard board = new Chessboard();
+    private Thread searchThread;
+    private SearchLimits searchLimits;
+    private CountDownLatch bestMoveHold; // Infinite and ponder searches keep their bestmove until stop or ponderhit
+    private boolean searchWhite;
+    private String bookFile = "";
+    private String bookKeysFile = "polyglot-keys.bin";
+    private PolyglotBook book;
+
+    public Uci(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        board.getSearchPool().addListener(this);
+        SearchMetrics.register(board.getSearchPool());
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci(new BufferedReader(new InputStreamReader(System.in)), System.out).run();
+    }
+
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            switch (tokens[0]) {
+                case "uci" -> {
+                    send("id name " + ENGINE_NAME);
+                    send("id author the " + ENGINE_NAME + " authors");
+                    send("option name Hash type spin default " + board.getSearchPool().getTranspositionTable().getSizeMb()
+                            + " min 1 max " + MAX_HASH_MB);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name EvalCache type spin default " + board.getSearchPool().getEvalCacheSize()
+                            + " min 0 max " + MAX_EVAL_CACHE_MB);
+                    send("option name Ponder type check default false");
+                    send("option name NullMove type check default " + board.getSearchPool().getOptions().isNullMovePruning());
+                    send("option name LateMoveReductions type check default " + board.getSearchPool().getOptions().isLateMoveReductions());
+                    send("option name BookFile type string default <empty>");
+                    send("option name BookKeysFile type string default " + bookKeysFile);
+                    send("option name BitbasePath type string default <empty>");
+                    send("uciok");
+                }
+                case "isready" -> send("readyok");
+                case "ucinewgame" -> {
+                    stopSearch();
+                    board.getSearchPool().getTranspositionTable().clear();
+                }
+                case "setoption" -> {
+                    stopSearch();
+                    setOption(tokens);
+                }
+                case "position" -> {
+                    stopSearch();
+                    setPosition(tokens);
+                }
+                case "go" -> {
+                    stopSearch();
+                    go(tokens);
+                }
+                case "stop" -> stopSearch();
+                case "ponderhit" -> {
+                    if (searchLimits != null) {
+                        searchLimits.ponderhit();
+                        bestMoveHold.countDown();
+                    }
+                }
+                case "quit" -> {
+                    stopSearch();
+                    return;
+                }
+                default -> {
+                    // Unknown commands are ignored, as the protocol asks
+                }
+            }
+        }
+        stopSearch();
+    }
+
+    // setoption name <id> [value <x>]; both the name and the value may contain spaces
+    private void setOption(String[] tokens) {
+        int valueIndex = Arrays.asList(tokens).indexOf("value");
+        int nameEnd = valueIndex < 0 ? tokens.length : valueIndex;
+        String name = String.join(" ", Arrays.copyOfRange(tokens, Math.min(2, nameEnd), nameEnd));
+        String value = valueIndex < 0 ? "" : String.join(" ", Arrays.copyOfRange(tokens, valueIndex + 1, tokens.length));
+        try {
+            switch (name.toLowerCase()) {
+                case "hash" -> board.setHashSize(Math.min(Integer.parseInt(value), MAX_HASH_MB));
+                case "threads" -> board.setThreads(Math.min(Integer.parseInt(value), MAX_THREADS));
+                case "nullmove" -> board.getSearchPool().getOptions().setNullMovePruning(Boolean.parseBoolean(value));
+                case "latemovereductions" -> board.getSearchPool().getOptions().setLateMoveReductions(Boolean.parseBoolean(value));
+                case "evalcache" -> board.setEvalCacheSize(Math.min(Integer.parseInt(value), MAX_EVAL_CACHE_MB));
+                case "bookfile" -> {
+                    bookFile = value.equals("<empty>") ? "" : value;
+                    openBook();
+                }
+                case "bookkeysfile" -> {
+                    bookKeysFile = value;
+                    openBook();
+                }
+                case "bitbasepath" -> loadBitbases(value.equals("<empty>") ? "" : value);
+                default -> {
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string bad value for " + name + ": " + value);
+        }
+    }
+
+    private void openBook() {
+        try {
+            if (book != null) {
+                book.close();
+            }
+            book = bookFile.isEmpty() ? null : PolyglotBook.open(Path.of(bookFile), Path.of(bookKeysFile));
+        } catch (IOException | IllegalArgumentException e) {
+            book = null;
+            send("info string book not loaded: " + e.getMessage());
+        }
+        board.setBook(book, PolyglotBook.Selection.WEIGHTED);
+    }
+
+    private void loadBitbases(String directory) {
+        try {
+            board.setBitbases(directory.isEmpty() ? null : Bitbases.load(Path.of(directory)));
+        } catch (IOException e) {
+            board.setBitbases(null);
+            send("info string bitbases not loaded: " + e.getMessage());
+        }
+    }
+
+    // position [startpos | fen <fen>] [moves <move>...]
+    private void setPosition(String[] tokens) {
+        int movesIndex = tokens.length;
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("moves")) {
+                movesIndex = i;
+                break;
+            }
+        }
+        try {
+            if (tokens.length > 1 && tokens[1].equals("fen")) {
+                board.setFen(String.join(" ", Arrays.copyOfRange(tokens, 2, movesIndex)));
+            } else {
+                board.setFen(Perft.START_FEN);
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+            return;
+        }
+
+        MoveGenerator moveGenerator = new MoveGenerator(board);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = movesIndex + 1; i < tokens.length; i++) {
+            int count = moveGenerator.generateLegalMoves(moves);
+            int move = Move.NONE;
+            for (int j = 0; j < count; j++) {
+                if (Move.toUci(moves[j]).equals(tokens[i])) {
+                    move = moves[j];
+                    break;
+                }
+            }
+            if (move == Move.NONE) {
+                send("info string illegal move " + tokens[i]);
+                return;
+            }
+            board.makeMove(move);
+        }
+    }
+
+    // go [depth d] [movetime t] [wtime t] [btime t] [winc t] [binc t] [movestogo n] [nodes n] [infinite] [ponder]
+    private void go(String[] tokens) {
+        SearchLimits limits = new SearchLimits();
+        long whiteTime = 0, blackTime = 0, whiteIncrement = 0, blackIncrement = 0;
+        int movesToGo = 0;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "depth" -> limits.setMaxDepth(Integer.parseInt(tokens[++i]));
+                    case "movetime" -> limits.setMoveTime(Long.parseLong(tokens[++i]));
+                    case "nodes" -> limits.setNodes(Long.parseLong(tokens[++i]));
+                    case "wtime" -> whiteTime = Long.parseLong(tokens[++i]);
+                    case "btime" -> blackTime = Long.parseLong(tokens[++i]);
+                    case "winc" -> whiteIncrement = Long.parseLong(tokens[++i]);
+                    case "binc" -> blackIncrement = Long.parseLong(tokens[++i]);
+                    case "movestogo" -> movesToGo = Integer.parseInt(tokens[++i]);
+                    case "infinite" -> limits.setInfinite(true);
+                    case "ponder" -> limits.setPonder(true);
+                    default -> {
+                    }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string bad go command");
+        }
+        limits.setClock(whiteTime, blackTime, whiteIncrement, blackIncrement, movesToGo);
+
+        searchLimits = limits;
+        bestMoveHold = new CountDownLatch(limits.isInfinite() || limits.isPonder() ? 1 : 0);
+        searchWhite = board.isWhiteToMove();
+        CountDownLatch hold = bestMoveHold;
+        searchThread = new Thread(() -> {
+            Move best = board.findBestMove(searchWhite, limits);
+            try {
+                hold.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            send(bestMoveCommand(best));
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    // The reply to the opponent's expected answer is sent as the ponder move, which is what a GUI ponders on. It is
+    // taken from the line of the thread whose move was chosen, and left out for book moves, which have no line.
+    private String bestMoveCommand(Move best) {
+        if (best == null) {
+            return "bestmove 0000";
+        }
+        String command = "bestmove " + Move.toUci(best.toCode());
+        List<Move> principalVariation = board.getSearchPool().getPrincipalVariation();
+        if (principalVariation.size() >= 2 && principalVariation.get(0).toCode() == best.toCode()) {
+            command += " ponder " + Move.toUci(principalVariation.get(1).toCode());
+        }
+        return command;
+    }
+
+    // Stops the running search, if any, and waits for its bestmove to be sent
+    private void stopSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        bestMoveHold.countDown();
+        while (searchThread.isAlive()) {
+            board.stop(); // Repeated in case the search hadn't started its threads yet
+            try {
+                searchThread.join(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        searchThread = null;
+        searchLimits = null;
+    }
+
+    @Override
+    public void iterationCompleted(int depth, int score, long nodes, long timeMs, List<Move> principalVariation) {
+        StringBuilder pv = new StringBuilder();
+        for (Move move : principalVariation) {
+            pv.append(' ').append(Move.toUci(move.toCode()));
+        }
+        send("info depth " + depth + " score " + formatScore(searchWhite ? score : -score) + " nodes " + nodes
+                + " nps " + nodes * 1000 / Math.max(1, timeMs) + " time " + timeMs + " pv" + pv);
+    }
+
+    // Score from the side to move's point of view, in centipawns or moves to mate
+    private static String formatScore(int score) {
+        if (score > Search.MATE_BOUND) {
+            return "mate " + (Search.MATE_SCORE - score + 1) / 2;
+        }
+        if (score < -Search.MATE_BOUND) {
+            return "mate " + -(Search.MATE_SCORE + score) / 2;
+        }
+        return "cp " + score;
+    }
+
+    private void send(String message) {
+        synchronized (out) {
+            out.println(message);
+            out.flush();
+        }
+    }
+}
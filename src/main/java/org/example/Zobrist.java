@@ -0,0 +1,63 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist {
+    public static final long[][] PIECE_KEYS = new long[Piece.COUNT][64];
+    public static final long[] CASTLING_KEYS = new long[16]; // One per combination of castling rights
+    public static final long[] EN_PASSANT_KEYS = new long[8]; // One per file
+    public static final long SIDE_KEY; // Mixed in when Black is to move
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL); // Fixed seed so keys are stable between runs
+        for (int piece = 0; piece < Piece.COUNT; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_KEYS[piece][square] = random.nextLong();
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    // Full recomputation from scratch; the board keeps its key up to date incrementally
+    public static long computeKey(Chessboard chessboard) {
+        long key = 0L;
+        for (int piece = 0; piece < Piece.COUNT; piece++) {
+            long bitboard = chessboard.getPieces(piece);
+            while (bitboard != 0) {
+                key ^= PIECE_KEYS[piece][Long.numberOfTrailingZeros(bitboard)];
+                bitboard &= bitboard - 1;
+            }
+        }
+        key ^= CASTLING_KEYS[chessboard.getCastlingRights()];
+        if (chessboard.getEnPassantSquare() != -1) {
+            key ^= EN_PASSANT_KEYS[Bitboards.col(chessboard.getEnPassantSquare())];
+        }
+        if (!chessboard.isWhiteToMove()) {
+            key ^= SIDE_KEY;
+        }
+        return key;
+    }
+
+    // The pawns' share of the full key, so positions with the same pawns share a pawn hash entry
+    public static long computePawnKey(Chessboard chessboard) {
+        long key = 0L;
+        for (int colour = Piece.WHITE; colour <= Piece.BLACK; colour++) {
+            int piece = Piece.make(colour, Piece.PAWN);
+            long bitboard = chessboard.getPieces(piece);
+            while (bitboard != 0) {
+                key ^= PIECE_KEYS[piece][Long.numberOfTrailingZeros(bitboard)];
+                bitboard &= bitboard - 1;
+            }
+        }
+        return key;
+    }
+}